@@ -2,8 +2,10 @@ package com.correia.augusto.card.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class CardApiApplication {
 
 	public static void main(String[] args) {
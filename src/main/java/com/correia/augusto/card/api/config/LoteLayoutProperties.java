@@ -0,0 +1,29 @@
+package com.correia.augusto.card.api.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+// Layouts posicionais dos arquivos de lote, declarados em card.layouts e compilados na subida pelo LoteLayouts.
+// Posições são em bytes, com fim exclusivo; no detalhe, fim <= 0 conta a partir do fim da linha.
+@ConfigurationProperties(prefix = "card.layouts")
+public record LoteLayoutProperties(
+        @DefaultValue("hyperativa") String padrao,
+        Map<String, LayoutSpec> definicoes) {
+
+    public record LayoutSpec(HeaderSpec header, DetalheSpec detalhe, TrailerSpec trailer) {}
+
+    public record HeaderSpec(
+            Campo nome,
+            Campo dataProcessamento,
+            @DefaultValue("yyyyMMdd") String formatoData,
+            Campo lote,
+            Campo quantidade) {}
+
+    public record DetalheSpec(@DefaultValue("") String prefixo, Campo numero) {}
+
+    public record TrailerSpec(@DefaultValue("") String prefixo) {}
+
+    public record Campo(int inicio, int fim) {}
+}
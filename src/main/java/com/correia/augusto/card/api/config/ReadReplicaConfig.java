@@ -0,0 +1,87 @@
+package com.correia.augusto.card.api.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+// Só existe com card.datasource.replica.url definida; sem ela o Spring Boot monta o DataSource único de sempre.
+// Transações readOnly (listagem, busca por id e por número) leem da réplica; todo o resto, inclusive a ingestão
+// de lotes, o cadastro e o Flyway, continua no primário.
+@Configuration
+@ConditionalOnProperty(prefix = "card.datasource.replica", name = "url")
+public class ReadReplicaConfig {
+
+    private enum Destino { PRIMARIO, REPLICA }
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties primaryDataSourceProperties) {
+        return primaryDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("card.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("card.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Qualifier("replicaDataSourceProperties") DataSourceProperties replicaDataSourceProperties) {
+        return replicaDataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                               @Value("${card.datasource.replica.max-lag:2s}") Duration maxLag,
+                                               @Value("${card.datasource.replica.check-interval:1s}") Duration checkInterval) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(ReplicaLagMonitor.mysql(replicaDataSource), maxLag);
+        monitor.start(checkInterval);
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        return routingDataSource(primaryDataSource, replicaDataSource, replicaLagMonitor);
+    }
+
+    // O proxy só pega a conexão real no primeiro comando, depois que a transação já marcou setReadOnly(true):
+    // aí escolhe o pool de leitura, que por sua vez cai no primário enquanto a réplica estiver atrasada.
+    static DataSource routingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+        AbstractRoutingDataSource leitura = new AbstractRoutingDataSource() {
+            @Override
+            protected Object determineCurrentLookupKey() {
+                return monitor.isReplicaUsable() ? Destino.REPLICA : Destino.PRIMARIO;
+            }
+        };
+        leitura.setTargetDataSources(Map.of(Destino.PRIMARIO, primary, Destino.REPLICA, replica));
+        leitura.setLenientFallback(false);
+        leitura.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(leitura);
+        return proxy;
+    }
+}
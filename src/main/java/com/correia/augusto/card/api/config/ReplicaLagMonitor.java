@@ -0,0 +1,81 @@
+package com.correia.augusto.card.api.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Mede o atraso da réplica a cada check-interval. Acima de max-lag (ou com a replicação parada, ou a réplica
+// fora do ar) as leituras voltam para o primário até a réplica alcançar de novo.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    // Atraso atual da réplica; null quando a replicação está parada.
+    @FunctionalInterface
+    public interface LagProbe {
+        Duration lag();
+    }
+
+    private final LagProbe probe;
+    private final Duration maxLag;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean replicaUsable;
+
+    public ReplicaLagMonitor(LagProbe probe, Duration maxLag) {
+        this.probe = probe;
+        this.maxLag = maxLag;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-lag-"));
+    }
+
+    // SHOW REPLICA STATUS vazio: o servidor não é réplica de ninguém (ex.: mesmo banco em dev), então não há atraso.
+    public static LagProbe mysql(DataSource replica) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+        return () -> {
+            List<Long> segundos = jdbcTemplate.query("SHOW REPLICA STATUS",
+                    (rs, rowNum) -> rs.getObject("Seconds_Behind_Source", Long.class));
+            if (segundos.isEmpty()) {
+                return Duration.ZERO;
+            }
+            return segundos.get(0) == null ? null : Duration.ofSeconds(segundos.get(0));
+        };
+    }
+
+    public void start(Duration checkInterval) {
+        check();
+        scheduler.scheduleWithFixedDelay(this::check, checkInterval.toMillis(), checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void check() {
+        boolean usable;
+        try {
+            Duration lag = probe.lag();
+            usable = lag != null && lag.compareTo(maxLag) <= 0;
+            if (!usable && replicaUsable) {
+                log.warn("Réplica atrasada ({}), leituras voltam para o primário", lag == null ? "replicação parada" : lag);
+            }
+        } catch (RuntimeException e) {
+            usable = false;
+            if (replicaUsable) {
+                log.warn("Réplica indisponível, leituras voltam para o primário: {}", e.getMessage());
+            }
+        }
+        if (usable && !replicaUsable) {
+            log.info("Réplica em dia, leituras somente-leitura vão para a réplica");
+        }
+        replicaUsable = usable;
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -2,6 +2,7 @@ package com.correia.augusto.card.api.controller;
 
 import com.correia.augusto.card.api.dto.AuthenticationRequest;
 import com.correia.augusto.card.api.dto.AuthenticationResponse;
+import com.correia.augusto.card.api.dto.RefreshTokenRequest;
 import com.correia.augusto.card.api.dto.RegisterRequest;
 import com.correia.augusto.card.api.security.AuthenticationService;
 import lombok.RequiredArgsConstructor;
@@ -26,4 +27,9 @@ public class AuthenticationController {
     public ResponseEntity<AuthenticationResponse> authenticate(@RequestBody AuthenticationRequest request) {
         return ResponseEntity.ok(authenticationService.authenticate(request));
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(@RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authenticationService.refresh(request));
+    }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.correia.augusto.card.api.controller;
 
+import com.correia.augusto.card.api.dto.CardPage;
 import com.correia.augusto.card.api.dto.CardRequest;
 import com.correia.augusto.card.api.dto.CardResponse;
 import com.correia.augusto.card.api.dto.ProcessamentoResult;
+import com.correia.augusto.card.api.dto.UploadJobResponse;
 import com.correia.augusto.card.api.service.CardService;
+import com.correia.augusto.card.api.service.UploadJobService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -17,7 +20,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
 
 @RestController
 @RequestMapping("/api/cards")
@@ -27,6 +29,7 @@ import java.util.List;
 public class CardController {
 
     private final CardService cardService;
+    private final UploadJobService uploadJobService;
 
     @PostMapping
     @PreAuthorize("hasRole('USER')")
@@ -42,8 +45,11 @@ public class CardController {
 
     @PreAuthorize("hasRole('USER')")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<CardResponse>> getCardsByUser(@PathVariable Long userId) {
-        List<CardResponse> cards = cardService.getCardsByUserId(userId);
+    public ResponseEntity<CardPage> getCardsByUser(
+            @PathVariable Long userId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", required = false) Integer size) {
+        CardPage cards = cardService.getCardsByUserId(userId, cursor, size);
         return ResponseEntity.ok(cards);
     }
 
@@ -57,16 +63,41 @@ public class CardController {
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/upload")
     public ResponseEntity<ProcessamentoResult> uploadArquivoCartoes(
-            @RequestParam("file") MultipartFile file, @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "layout", required = false) String layout,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
 
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
 
-        ProcessamentoResult resultant = cardService.processCardFile(file.getBytes(), userDetails.getUsername());
+        ProcessamentoResult resultant = cardService.processCardFile(file.getInputStream(), userDetails.getUsername(), layout);
         return ResponseEntity.ok(resultant);
     }
 
+    @PreAuthorize("hasRole('USER')")
+    @PostMapping("/upload/async")
+    public ResponseEntity<UploadJobResponse> uploadArquivoCartoesAsync(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "layout", required = false) String layout,
+            @AuthenticationPrincipal UserDetails userDetails) throws IOException {
+
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        UploadJobResponse job = uploadJobService.submit(file, userDetails.getUsername(), layout);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @PreAuthorize("hasRole('USER')")
+    @GetMapping("/upload/{jobId}")
+    public ResponseEntity<UploadJobResponse> getUploadJob(
+            @PathVariable String jobId, @AuthenticationPrincipal UserDetails userDetails) {
+
+        return ResponseEntity.ok(uploadJobService.getJob(jobId, userDetails.getUsername()));
+    }
+
     @GetMapping("/by-number")
     public ResponseEntity<CardResponse> getCardByNumber(
             @RequestParam String number,
@@ -0,0 +1,6 @@
+package com.correia.augusto.card.api.dto;
+
+import java.util.List;
+
+// nextCursor é opaco para o cliente; null indica que não há mais páginas.
+public record CardPage(List<CardResponse> cards, String nextCursor) {}
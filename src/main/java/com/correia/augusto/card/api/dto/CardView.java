@@ -0,0 +1,20 @@
+package com.correia.augusto.card.api.dto;
+
+import com.correia.augusto.card.api.enums.CardType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Projeção de leitura: só as colunas da resposta, mais o dono e o número cifrado
+// (usado apenas por linhas ainda sem masked_number).
+public record CardView(
+        UUID id,
+        String number,
+        String maskedNumber,
+        String holderName,
+        LocalDate expirationDate,
+        CardType type,
+        Instant createdAt,
+        Long userId
+) {}
@@ -0,0 +1,3 @@
+package com.correia.augusto.card.api.dto;
+
+public record IngestionProgress(String lote, int linhasLidas, int cartoesProcessados, int duplicados, int erros) {}
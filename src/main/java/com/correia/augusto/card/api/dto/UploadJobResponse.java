@@ -0,0 +1,19 @@
+package com.correia.augusto.card.api.dto;
+
+import com.correia.augusto.card.api.enums.UploadJobStatus;
+
+import java.time.Instant;
+
+public record UploadJobResponse(
+        String jobId,
+        UploadJobStatus status,
+        String lote,
+        int linhasLidas,
+        int cartoesProcessados,
+        int duplicados,
+        int erros,
+        ProcessamentoResult resultado,
+        String mensagem,
+        Instant createdAt,
+        Instant updatedAt
+) {}
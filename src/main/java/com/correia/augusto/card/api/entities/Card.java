@@ -6,6 +6,7 @@ import lombok.*;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.UUID;
 
 @Entity
 @Table(name = "card_data")
@@ -17,12 +18,19 @@ import java.time.LocalDate;
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
+    @TimeOrderedUuid
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
 
     @Column(nullable = false, unique = true)
     private String number;
 
+    @Column(name = "number_hash", unique = true, columnDefinition = "BINARY(32)")
+    private byte[] numberHash;
+
+    @Column(name = "masked_number", length = 19)
+    private String maskedNumber;
+
     @Column(nullable = false)
     private String holderName;
 
@@ -0,0 +1,55 @@
+package com.correia.augusto.card.api.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "lote_checkpoint")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoteCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String lote;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "created_by", nullable = false)
+    private User user;
+
+    // última linha do arquivo (o cabeçalho é a linha 1) cujo resultado já está confirmado no banco
+    @Column(nullable = false)
+    private int ultimaLinha;
+
+    private int cartoesProcessados;
+
+    private int duplicados;
+
+    // detalhes que o layout recusou (número ausente ou fora de 13 a 19 posições); cabeçalho e trailer não contam
+    private int erros;
+
+    private int avaliadas;
+
+    private boolean concluido;
+
+    // SHA-256 do cabeçalho e dos cartões até ultimaLinha; reenvio com o mesmo lote precisa ser o mesmo arquivo
+    @Column(columnDefinition = "BINARY(32)")
+    private byte[] digest;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = Instant.now();
+    }
+}
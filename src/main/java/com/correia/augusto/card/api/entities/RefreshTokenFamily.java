@@ -0,0 +1,41 @@
+package com.correia.augusto.card.api.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Família de refresh tokens nascida em um login. Só o token da geração atual é aceito;
+// reapresentar um token de geração anterior revoga a família inteira.
+@Entity
+@Table(name = "refresh_token_family")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenFamily {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    private int generation;
+
+    private boolean revoked;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    private Instant updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,63 @@
+package com.correia.augusto.card.api.entities;
+
+import com.correia.augusto.card.api.enums.UploadJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "upload_job")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadJob {
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private UploadJobStatus status;
+
+    private String filePath;
+
+    private String layout;
+
+    // Nó que gravou o arquivo no spool local e é o único que pode retomar o job.
+    private String nodeId;
+
+    private String lote;
+
+    private int linhasLidas;
+
+    private int cartoesProcessados;
+
+    private int duplicados;
+
+    private int erros;
+
+    private String mensagem;
+
+    @Column(nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = Instant.now();
+    }
+}
@@ -0,0 +1,5 @@
+package com.correia.augusto.card.api.enums;
+
+public enum BulkLoadStrategy {
+    JDBC_BATCH, LOAD_DATA
+}
@@ -0,0 +1,5 @@
+package com.correia.augusto.card.api.enums;
+
+public enum UploadJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
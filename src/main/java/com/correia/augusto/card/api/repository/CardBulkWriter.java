@@ -0,0 +1,218 @@
+package com.correia.augusto.card.api.repository;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.enums.BulkLoadStrategy;
+import com.correia.augusto.card.api.exception.ApplicationException;
+import com.correia.augusto.card.api.util.UuidV7;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class CardBulkWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO card_data (id, number, number_hash, masked_number, holder_name, expiration_date, cvv, type,
+                                   lote, data_processamento, created_by, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Número repetido vira no-op no próprio INSERT (a chave única de number_hash decide), então o batch
+    // nunca falha por duplicado, nem quando outro nó grava o mesmo número ao mesmo tempo.
+    private static final String INSERT_IGNORING_DUPLICATES_SQL = INSERT_SQL + "ON DUPLICATE KEY UPDATE id = id\n";
+
+    private static final String LOAD_DATA_SQL = """
+            LOAD DATA LOCAL INFILE '%s' INTO TABLE card_data CHARACTER SET utf8mb4
+            (@id, number, @number_hash, masked_number, holder_name, expiration_date, cvv, type, lote, data_processamento,
+             created_by, created_at)
+            SET id = UNHEX(@id), number_hash = UNHEX(@number_hash)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${card.ingestion.strategy:JDBC_BATCH}")
+    private BulkLoadStrategy strategy;
+
+    // Carga de arquivo de lote, pela estratégia de card.ingestion.strategy. Devolve quantos cartões foram realmente
+    // gravados; números já existentes no banco são ignorados.
+    public int insert(List<Card> cards) {
+        if (cards.isEmpty()) {
+            return 0;
+        }
+
+        assignIds(cards);
+        if (strategy == BulkLoadStrategy.LOAD_DATA) {
+            try {
+                return loadData(cards);
+            } catch (DataAccessException e) {
+                log.warn("LOAD DATA LOCAL INFILE indisponível, usando JDBC batch: {}", e.getMessage());
+            }
+        }
+        return batchInsert(cards);
+    }
+
+    // Lotes pequenos do cadastro unitário (group commit): sempre JDBC batch, mesmo com LOAD_DATA configurado,
+    // que custaria um arquivo temporário por lote de poucas linhas.
+    public int insertBatch(List<Card> cards) {
+        if (cards.isEmpty()) {
+            return 0;
+        }
+
+        assignIds(cards);
+        return batchInsert(cards);
+    }
+
+    // ids UUIDv7 crescentes: o lote inteiro vai para o fim do índice clusterizado
+    private static void assignIds(List<Card> cards) {
+        Instant now = Instant.now();
+        for (Card card : cards) {
+            card.setId(UuidV7.next());
+            card.setCreatedAt(now);
+        }
+    }
+
+    // O update count não diz quais linhas entraram: com rewriteBatchedStatements o driver devolve SUCCESS_NO_INFO,
+    // e o Connector/J conta o no-op do ON DUPLICATE KEY como linha encontrada. O total é conferido pelos ids.
+    private int batchInsert(List<Card> cards) {
+        jdbcTemplate.batchUpdate(INSERT_IGNORING_DUPLICATES_SQL, cards, cards.size(), (ps, card) -> {
+            ps.setBytes(1, UuidV7.toBytes(card.getId()));
+            ps.setString(2, card.getNumber());
+            ps.setBytes(3, card.getNumberHash());
+            ps.setString(4, card.getMaskedNumber());
+            ps.setString(5, card.getHolderName());
+            ps.setDate(6, Date.valueOf(card.getExpirationDate()));
+            ps.setString(7, card.getCvv());
+            ps.setString(8, card.getType().name());
+            ps.setString(9, card.getLote());
+            ps.setDate(10, card.getDataProcessamento() == null ? null : Date.valueOf(card.getDataProcessamento()));
+            ps.setLong(11, card.getUser().getId());
+            ps.setTimestamp(12, Timestamp.from(card.getCreatedAt()));
+        });
+
+        Integer inserted = namedParameterJdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM card_data WHERE id IN (:ids)",
+                Map.of("ids", cards.stream().map(card -> UuidV7.toBytes(card.getId())).toList()),
+                Integer.class);
+        return inserted == null ? 0 : inserted;
+    }
+
+    // Quais dos ids de um insert() com duplicados chegaram de fato ao banco.
+    public Set<UUID> findPersistedIds(List<UUID> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.query(
+                "SELECT id FROM card_data WHERE id IN (:ids)",
+                Map.of("ids", ids.stream().map(UuidV7::toBytes).toList()),
+                (rs, rowNum) -> UuidV7.fromBytes(rs.getBytes(1))));
+    }
+
+    // Cadastro unitário em um único round trip: o INSERT vai direto e a violação da chave única vira false,
+    // sem o existsBy antes (que custava uma ida a mais ao banco e deixava passar duas requisições simultâneas).
+    public boolean insertIfAbsent(Card card) {
+        card.setId(UuidV7.next());
+        card.setCreatedAt(Instant.now());
+        try {
+            insertOne(card);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void insertOne(Card card) {
+        jdbcTemplate.update(INSERT_SQL,
+                UuidV7.toBytes(card.getId()),
+                card.getNumber(),
+                card.getNumberHash(),
+                card.getMaskedNumber(),
+                card.getHolderName(),
+                Date.valueOf(card.getExpirationDate()),
+                card.getCvv(),
+                card.getType().name(),
+                card.getLote(),
+                card.getDataProcessamento() == null ? null : Date.valueOf(card.getDataProcessamento()),
+                card.getUser().getId(),
+                Timestamp.from(card.getCreatedAt()));
+    }
+
+    // Com LOCAL o MySQL trata chave duplicada como IGNORE, e o update count é o número de linhas gravadas.
+    private int loadData(List<Card> cards) {
+        Path file = null;
+        try {
+            file = Files.createTempFile("card-load", ".tsv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                HexFormat hex = HexFormat.of();
+                for (Card card : cards) {
+                    writer.write(String.join("\t",
+                            hex.formatHex(UuidV7.toBytes(card.getId())),
+                            escape(card.getNumber()),
+                            hex.formatHex(card.getNumberHash()),
+                            toField(card.getMaskedNumber()),
+                            escape(card.getHolderName()),
+                            card.getExpirationDate().toString(),
+                            escape(card.getCvv()),
+                            card.getType().name(),
+                            escape(card.getLote()),
+                            toField(card.getDataProcessamento()),
+                            card.getUser().getId().toString(),
+                            Timestamp.from(card.getCreatedAt()).toString()));
+                    writer.write('\n');
+                }
+            }
+            String path = file.toAbsolutePath().toString().replace('\\', '/').replace("'", "\\'");
+            return jdbcTemplate.update(LOAD_DATA_SQL.formatted(path));
+        } catch (IOException e) {
+            throw new ApplicationException("Falha ao gerar o arquivo de carga", e);
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    private static String toField(LocalDate date) {
+        return date == null ? "\\N" : date.toString();
+    }
+
+    private static String toField(String value) {
+        return value == null ? "\\N" : escape(value);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o arquivo temporário {}", file, e);
+        }
+    }
+}
@@ -1,22 +1,65 @@
 package com.correia.augusto.card.api.repository;
 
+import com.correia.augusto.card.api.dto.CardView;
 import com.correia.augusto.card.api.entities.Card;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, String> {
+public interface CardRepository extends JpaRepository<Card, UUID> {
 
-    @Query("SELECT c FROM Card c WHERE c.user.id = :userId ORDER BY c.createdAt DESC")
-    List<Card> findAllByUser(@Param("userId") Long userId);
+    String VIEW = """
+            SELECT new com.correia.augusto.card.api.dto.CardView(
+                c.id, c.number, c.maskedNumber, c.holderName, c.expirationDate, c.type, c.createdAt, c.user.id)
+            FROM Card c
+            """;
 
-    @Query("SELECT c FROM Card c WHERE c.number = :encryptedNumber")
-    Optional<Card> findByEncryptedNumber(@Param("encryptedNumber") String encryptedNumber);
+    // Paginação por keyset sobre o índice (created_by, created_at, id): cada página parte da última linha entregue.
+    @Query(VIEW + "WHERE c.user.id = :userId ORDER BY c.createdAt DESC, c.id DESC")
+    List<CardView> findFirstPageByUser(@Param("userId") Long userId, Limit limit);
 
-    boolean existsByNumber(String encryptedNumber);
+    @Query(VIEW + """
+            WHERE c.user.id = :userId
+              AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<CardView> findPageByUserAfter(@Param("userId") Long userId,
+                                   @Param("createdAt") Instant createdAt,
+                                   @Param("id") UUID id,
+                                   Limit limit);
+
+    // As buscas unitárias abrem a própria transação readOnly (vão para a réplica, se houver): o serviço só chega
+    // aqui no miss do CardLookupCache.
+    @Transactional(readOnly = true)
+    @Query(VIEW + "WHERE c.id = :id")
+    Optional<CardView> findViewById(@Param("id") UUID id);
+
+    // Dono conferido na própria consulta; quem não encontra nada usa existsByNumberHash para saber o motivo.
+    @Transactional(readOnly = true)
+    @Query(VIEW + "WHERE c.numberHash = :numberHash AND c.user.id = :userId")
+    Optional<CardView> findViewByNumberHashAndUser(@Param("numberHash") byte[] numberHash, @Param("userId") Long userId);
+
+    @Transactional(readOnly = true)
+    boolean existsByNumberHash(byte[] numberHash);
+
+    @Query("SELECT c.numberHash FROM Card c WHERE c.numberHash IN :numberHashes")
+    List<byte[]> findExistingNumberHashes(@Param("numberHashes") Collection<byte[]> numberHashes);
+
+    // Paginado pelo id: linhas que o backfill não consegue decifrar continuam NULL, mas ficam para trás do cursor.
+    @Query("""
+            SELECT c FROM Card c
+            WHERE c.id > :afterId AND (c.numberHash IS NULL OR c.maskedNumber IS NULL)
+            ORDER BY c.id
+            """)
+    List<Card> findBackfillPage(@Param("afterId") UUID afterId, Limit limit);
 }
@@ -0,0 +1,13 @@
+package com.correia.augusto.card.api.repository;
+
+import com.correia.augusto.card.api.entities.LoteCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface LoteCheckpointRepository extends JpaRepository<LoteCheckpoint, Long> {
+
+    Optional<LoteCheckpoint> findByLoteAndUserId(String lote, Long userId);
+}
@@ -0,0 +1,30 @@
+package com.correia.augusto.card.api.repository;
+
+import com.correia.augusto.card.api.entities.RefreshTokenFamily;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+    // Trava a linha para que dois refresh simultâneos com o mesmo token não gerem duas rotações.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM RefreshTokenFamily f WHERE f.id = :id")
+    Optional<RefreshTokenFamily> findByIdForUpdate(@Param("id") String id);
+
+    // Percorre idx_refresh_token_family_expires; o LIMIT mantém cada DELETE curto.
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM refresh_token_family WHERE expires_at < :agora ORDER BY expires_at LIMIT :limite",
+            nativeQuery = true)
+    int deleteExpired(@Param("agora") Instant agora, @Param("limite") int limite);
+}
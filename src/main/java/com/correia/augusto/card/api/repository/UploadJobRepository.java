@@ -0,0 +1,37 @@
+package com.correia.augusto.card.api.repository;
+
+import com.correia.augusto.card.api.entities.UploadJob;
+import com.correia.augusto.card.api.enums.UploadJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadJobRepository extends JpaRepository<UploadJob, String> {
+
+    Optional<UploadJob> findByIdAndUsername(String id, String username);
+
+    List<UploadJob> findByNodeIdAndStatusIn(String nodeId, Collection<UploadJobStatus> statuses);
+
+    @Modifying
+    @Query("""
+            UPDATE UploadJob j SET j.lote = :lote, j.linhasLidas = :linhasLidas,
+                j.cartoesProcessados = :cartoesProcessados, j.duplicados = :duplicados, j.erros = :erros,
+                j.updatedAt = :updatedAt
+            WHERE j.id = :id
+            """)
+    void updateProgress(@Param("id") String id,
+                        @Param("lote") String lote,
+                        @Param("linhasLidas") int linhasLidas,
+                        @Param("cartoesProcessados") int cartoesProcessados,
+                        @Param("duplicados") int duplicados,
+                        @Param("erros") int erros,
+                        @Param("updatedAt") Instant updatedAt);
+}
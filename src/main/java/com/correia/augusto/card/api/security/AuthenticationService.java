@@ -2,17 +2,26 @@ package com.correia.augusto.card.api.security;
 
 import com.correia.augusto.card.api.dto.AuthenticationRequest;
 import com.correia.augusto.card.api.dto.AuthenticationResponse;
+import com.correia.augusto.card.api.dto.RefreshTokenRequest;
 import com.correia.augusto.card.api.dto.RegisterRequest;
+import com.correia.augusto.card.api.entities.RefreshTokenFamily;
 import com.correia.augusto.card.api.enums.Role;
+import com.correia.augusto.card.api.exception.AuthenticationFailedException;
 import com.correia.augusto.card.api.exception.DuplicateDataException;
+import com.correia.augusto.card.api.repository.RefreshTokenFamilyRepository;
 import com.correia.augusto.card.api.repository.UserRepository;
 import com.correia.augusto.card.api.entities.User;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -21,40 +30,113 @@ public class AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final UserIdentityCache userIdentityCache;
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final String REFRESH_TOKEN_INVALIDO = "Invalid refresh token";
 
-    @Transactional
+    // O BCrypt roda antes da transação: os ~100 ms de hash não seguram uma conexão do pool. Dentro dela ficam só
+    // a checagem de duplicado (repetida, pode ter chegado outro cadastro durante o hash) e os inserts.
     public AuthenticationResponse register(RegisterRequest request) {
 
-        var user = User.builder()
-                .username(request.getUsername())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .role(Role.USER)
-                .build();
+        // a checagem barata vem antes do BCrypt: username repetido não gasta hash
+        checkUsernameAvailable(request.getUsername());
+        String password = passwordEncoder.encode(request.getPassword());
 
-        if (userRepository.findByUsername(request.getUsername().trim()).isPresent()){
-            throw new DuplicateDataException("Username already exists");
-        }
+        AuthenticationResponse response = transactionTemplate.execute(status -> {
+            checkUsernameAvailable(request.getUsername());
+            var user = User.builder()
+                    .username(request.getUsername())
+                    .password(password)
+                    .role(Role.USER)
+                    .build();
 
-        userRepository.save(user);
-        var jwtToken = jwtService.generateToken(user);
+            userRepository.save(user);
+            return issueTokens(user);
+        });
+        userIdentityCache.invalidate(request.getUsername());
 
-        return AuthenticationResponse.builder()
-                .token(jwtToken)
-                .build();
+        return response;
+    }
+
+    private void checkUsernameAvailable(String username) {
+        if (userRepository.findByUsername(username.trim()).isPresent()){
+            throw new DuplicateDataException("Username already exists");
+        }
     }
 
     public AuthenticationResponse authenticate(AuthenticationRequest request) {
-        authenticationManager.authenticate(
+        // o principal autenticado já é a entidade carregada pelo provider; nenhuma consulta extra ao usuário
+        var authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         request.getUsername(),
                         request.getPassword()
                 )
         );
-        var user = userRepository.findByUsername(request.getUsername())
-                .orElseThrow();
-        var jwtToken = jwtService.generateToken(user);
+        var user = (User) authentication.getPrincipal();
+        return issueTokens(user);
+    }
+
+    // Troca o refresh token por um novo par sem checar senha (sem BCrypt). O token apresentado precisa ser
+    // o da geração atual da família; um token já trocado sendo reapresentado indica vazamento, e a família
+    // inteira é revogada. noRollbackFor mantém a revogação gravada mesmo com a exceção.
+    @Transactional(noRollbackFor = AuthenticationFailedException.class)
+    public AuthenticationResponse refresh(RefreshTokenRequest request) {
+        VerifiedToken token = verifyRefreshToken(request.getRefreshToken());
+
+        RefreshTokenFamily family = refreshTokenFamilyRepository.findByIdForUpdate(token.familyId())
+                .filter(found -> !found.isRevoked() && found.getExpiresAt().isAfter(Instant.now()))
+                .orElseThrow(() -> new AuthenticationFailedException(REFRESH_TOKEN_INVALIDO));
+
+        if (family.getGeneration() != token.generation()) {
+            family.setRevoked(true);
+            // vence agora: a limpeza por expires_at já leva a família revogada
+            family.setExpiresAt(Instant.now());
+            throw new AuthenticationFailedException(REFRESH_TOKEN_INVALIDO);
+        }
+
+        User user = userIdentityCache.find(token.subject())
+                .filter(identity -> identity.id().equals(family.getUser().getId()))
+                .map(UserIdentity::toUser)
+                .orElseThrow(() -> new AuthenticationFailedException(REFRESH_TOKEN_INVALIDO));
+
+        family.setGeneration(family.getGeneration() + 1);
+        family.setExpiresAt(Instant.now().plus(jwtService.refreshTokenTtl()));
+
+        return AuthenticationResponse.builder()
+                .token(jwtService.generateToken(user))
+                .refreshToken(jwtService.generateRefreshToken(user, family.getId(), family.getGeneration()))
+                .build();
+    }
+
+    private AuthenticationResponse issueTokens(User user) {
+        RefreshTokenFamily family = refreshTokenFamilyRepository.save(RefreshTokenFamily.builder()
+                .id(UUID.randomUUID().toString())
+                .user(user)
+                .generation(0)
+                .expiresAt(Instant.now().plus(jwtService.refreshTokenTtl()))
+                .build());
+
         return AuthenticationResponse.builder()
-                .token(jwtToken)
+                .token(jwtService.generateToken(user))
+                .refreshToken(jwtService.generateRefreshToken(user, family.getId(), family.getGeneration()))
                 .build();
     }
+
+    private VerifiedToken verifyRefreshToken(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new AuthenticationFailedException(REFRESH_TOKEN_INVALIDO);
+        }
+        VerifiedToken token;
+        try {
+            token = jwtService.validate(refreshToken);
+        } catch (JwtException e) {
+            throw new AuthenticationFailedException(REFRESH_TOKEN_INVALIDO);
+        }
+        if (!token.isRefresh() || token.familyId() == null) {
+            throw new AuthenticationFailedException(REFRESH_TOKEN_INVALIDO);
+        }
+        return token;
+    }
 }
\ No newline at end of file
@@ -4,11 +4,11 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,11 +19,15 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserIdentityCache userIdentityCache;
+    private final boolean verifyUser;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserIdentityCache userIdentityCache,
+                                   @Value("${card.security.jwt.verify-user:false}") boolean verifyUser) {
         this.jwtService = jwtService;
-        this.userDetailsService = userDetailsService;
+        this.userIdentityCache = userIdentityCache;
+        this.verifyUser = verifyUser;
     }
 
     @Override
@@ -43,13 +47,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
 
-        userEmail = jwtService.extractUsername(jwt);
+        // um único parse: assinatura e expiração já vêm verificadas
+        VerifiedToken token = jwtService.validate(jwt);
+        userEmail = token.subject();
 
-        if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+        // refresh token só serve para /api/auth/refresh, nunca como credencial de acesso
+        if (userEmail != null && !token.isRefresh() && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
+            UserIdentity identity = resolveIdentity(userEmail, token.identity());
 
-            if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (identity != null) {
+                UserDetails userDetails = identity.toUser();
 
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
@@ -67,4 +75,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // Token com uid/role basta para montar o principal. Só tokens antigos, sem essas claims, ou a verificação
+    // de usuário ligada (card.security.jwt.verify-user) passam pelo cache de identidade e, no miss, pelo banco.
+    private UserIdentity resolveIdentity(String username, UserIdentity fromClaims) {
+        if (fromClaims != null && !verifyUser) {
+            return fromClaims;
+        }
+        UserIdentity stored = userIdentityCache.find(username).orElse(null);
+        if (stored == null || (fromClaims != null && !fromClaims.id().equals(stored.id()))) {
+            return null;
+        }
+        return stored;
+    }
 }
\ No newline at end of file
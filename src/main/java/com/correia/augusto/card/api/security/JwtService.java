@@ -1,6 +1,8 @@
 package com.correia.augusto.card.api.security;
 
+import com.correia.augusto.card.api.entities.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,6 +10,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
@@ -17,22 +20,52 @@ import java.util.function.Function;
 @Service
 public class JwtService {
 
-    @Value("${application.security.jwt.expiration}")
-    private long jwtExpiration;
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_TYPE = "typ";
+    static final String CLAIM_FAMILY = "fam";
+    static final String CLAIM_GENERATION = "gen";
+    static final String TYPE_REFRESH = "refresh";
+
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+
+    // Chave e parser são imutáveis e thread-safe: montados uma vez e compartilhados entre as requisições.
+    private final SecretKey signInKey;
+    private final JwtParser parser;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public JwtService(@Value("${application.security.jwt.secret-key}") String secretKey,
+                      @Value("${application.security.jwt.expiration}") long jwtExpiration,
+                      @Value("${application.security.jwt.refresh-token.expiration}") long refreshExpiration,
+                      VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        this.signInKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretKey));
+        this.parser = Jwts.parser()
+                .verifyWith(signInKey)
+                .build();
+    }
 
-    @Value("${application.security.jwt.refresh-token.expiration}")
-    private long refreshExpiration;
+    // Único ponto de verificação: assinatura e expiração são checadas em um só parse,
+    // e o mesmo token reapresentado dentro da validade sai do cache sem refazer HMAC e JSON.
+    // Lança JwtException (ExpiredJwtException, SignatureException...) se o token não for aceito.
+    public VerifiedToken validate(String token) {
+        return verifiedTokenCache.get(token, this::verify);
+    }
 
-    @Value("${application.security.jwt.secret-key}")
-    private String secretKey;
+    private VerifiedToken verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant(), claims);
+    }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return validate(token).subject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(validate(token).claims());
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -46,10 +79,21 @@ public class JwtService {
         return buildToken(extraClaims, userDetails, jwtExpiration);
     }
 
+    // O refresh token carrega a família e a geração; quem decide se ele ainda vale é a tabela refresh_token_family.
     public String generateRefreshToken(
-            UserDetails userDetails
+            UserDetails userDetails,
+            String familyId,
+            int generation
     ) {
-        return buildToken(new HashMap<>(), userDetails, refreshExpiration);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TYPE, TYPE_REFRESH);
+        claims.put(CLAIM_FAMILY, familyId);
+        claims.put(CLAIM_GENERATION, generation);
+        return buildToken(claims, userDetails, refreshExpiration);
+    }
+
+    public Duration refreshTokenTtl() {
+        return Duration.ofMillis(refreshExpiration);
     }
 
     private String buildToken(
@@ -57,39 +101,22 @@ public class JwtService {
             UserDetails userDetails,
             long expiration
     ) {
-        return Jwts
-                .builder()
-                .claims(extraClaims)
+        var builder = Jwts.builder().claims(extraClaims);
+        // id e role no próprio token deixam o filtro montar o principal sem consultar o banco
+        if (userDetails instanceof User user && user.getId() != null && user.getRole() != null) {
+            builder.claim(CLAIM_USER_ID, user.getId())
+                    .claim(CLAIM_ROLE, user.getRole().name());
+        }
+        return builder
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey())
+                .signWith(signInKey)
                 .compact();
     }
 
+    // Token expirado não chega à comparação: o parse já lança ExpiredJwtException.
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private SecretKey getSignInKey() {
-        byte[] keyBytes = Base64.getDecoder().decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return validate(token).subject().equals(userDetails.getUsername());
     }
-}
\ No newline at end of file
+}
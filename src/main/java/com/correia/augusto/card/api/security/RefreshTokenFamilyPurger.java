@@ -0,0 +1,71 @@
+package com.correia.augusto.card.api.security;
+
+import com.correia.augusto.card.api.repository.RefreshTokenFamilyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Apaga famílias de refresh token vencidas a cada interval, em lotes de batch-size pelo índice de expires_at.
+// Família revogada já sai com expires_at = agora, então cai na mesma limpeza. Rodar em vários nós ao mesmo
+// tempo só divide o trabalho.
+@Component
+@Slf4j
+public class RefreshTokenFamilyPurger {
+
+    private final RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private final Duration interval;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    public RefreshTokenFamilyPurger(RefreshTokenFamilyRepository refreshTokenFamilyRepository,
+                                    @Value("${card.security.refresh-token-purge.interval:1h}") Duration interval,
+                                    @Value("${card.security.refresh-token-purge.batch-size:1000}") int batchSize) {
+        this.refreshTokenFamilyRepository = refreshTokenFamilyRepository;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("refresh-token-purge-"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::purgeSafely, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Lotes curtos, cada um na própria transação: a limpeza nunca segura muitas linhas travadas de uma vez.
+    public int purge() {
+        Instant agora = Instant.now();
+        int total = 0;
+        int apagadas;
+        do {
+            apagadas = refreshTokenFamilyRepository.deleteExpired(agora, batchSize);
+            total += apagadas;
+        } while (apagadas == batchSize && !Thread.currentThread().isInterrupted());
+        if (total > 0) {
+            log.info("{} famílias de refresh token vencidas ou revogadas removidas", total);
+        }
+        return total;
+    }
+
+    private void purgeSafely() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao remover famílias de refresh token vencidas: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
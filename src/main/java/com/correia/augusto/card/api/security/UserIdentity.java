@@ -0,0 +1,21 @@
+package com.correia.augusto.card.api.security;
+
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.enums.Role;
+
+// O que o caminho autenticado precisa saber do usuário; nunca carrega a senha.
+public record UserIdentity(Long id, String username, Role role) {
+
+    public static UserIdentity of(User user) {
+        return new UserIdentity(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    // Referência desanexada para associações (created_by); só o id é usado na gravação.
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .role(role)
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+package com.correia.augusto.card.api.security;
+
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.repository.UserRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// username -> id/role em memória, limitado e com TTL. O filtro JWT popula e os serviços reaproveitam,
+// então uma requisição autenticada não consulta a tabela users enquanto a entrada estiver viva.
+// Mudanças feitas fora desta instância só aparecem depois do TTL.
+@Component
+public class UserIdentityCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserIdentity> cache;
+
+    public UserIdentityCache(UserRepository userRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${card.security.user-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${card.security.user-cache.expire-after-write:5m}") Duration expireAfterWrite) {
+        this.userRepository = userRepository;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "user_identity");
+    }
+
+    // Usuário inexistente não fica no cache, para que um cadastro novo apareça na hora.
+    public Optional<UserIdentity> find(String username) {
+        UserIdentity identity = cache.getIfPresent(username);
+        if (identity != null) {
+            return Optional.of(identity);
+        }
+        Optional<UserIdentity> loaded = userRepository.findByUsername(username).map(UserIdentity::of);
+        loaded.ifPresent(found -> cache.put(username, found));
+        return loaded;
+    }
+
+    public void put(User user) {
+        cache.put(user.getUsername(), UserIdentity.of(user));
+    }
+
+    public void invalidate(String username) {
+        cache.invalidate(username);
+    }
+}
@@ -0,0 +1,33 @@
+package com.correia.augusto.card.api.security;
+
+import com.correia.augusto.card.api.enums.Role;
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+// Resultado de um token já verificado (assinatura e expiração).
+public record VerifiedToken(String subject, Instant expiresAt, Claims claims) {
+
+    // Devolve null para tokens emitidos antes das claims de identidade.
+    public UserIdentity identity() {
+        Number userId = claims.get(JwtService.CLAIM_USER_ID, Number.class);
+        String role = claims.get(JwtService.CLAIM_ROLE, String.class);
+        if (userId == null || role == null) {
+            return null;
+        }
+        return new UserIdentity(userId.longValue(), subject, Role.valueOf(role));
+    }
+
+    public boolean isRefresh() {
+        return JwtService.TYPE_REFRESH.equals(claims.get(JwtService.CLAIM_TYPE, String.class));
+    }
+
+    public String familyId() {
+        return claims.get(JwtService.CLAIM_FAMILY, String.class);
+    }
+
+    public int generation() {
+        Number generation = claims.get(JwtService.CLAIM_GENERATION, Number.class);
+        return generation == null ? -1 : generation.intValue();
+    }
+}
@@ -0,0 +1,52 @@
+package com.correia.augusto.card.api.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+// Tokens já verificados, indexados pelo SHA-256 do token inteiro: um token com qualquer byte diferente
+// (inclusive a assinatura) cai em outra chave e passa pela verificação completa.
+// O Guava não tem expiração por entrada, então o TTL do cache é um teto e o exp do token é conferido a cada hit;
+// um token vencido nunca sai daqui, vai para o parse e falha com ExpiredJwtException.
+// Só a verificação criptográfica é cacheada; a checagem de usuário do filtro (verify-user) roda em todo hit.
+@Component
+public class VerifiedTokenCache {
+
+    private final Cache<HashCode, VerifiedToken> cache;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${card.security.token-cache.maximum-size:10000}") long maximumSize,
+                              @Value("${card.security.token-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "verified_token");
+    }
+
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        // cada char entra inteiro (16 bits): nenhum caractere vira '?' como num charset, então tokens diferentes
+        // nunca dividem a mesma chave
+        HashCode digest = Hashing.sha256().hashUnencodedChars(token);
+        VerifiedToken cached = cache.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.expiresAt().isAfter(Instant.now())) {
+                return cached;
+            }
+            cache.invalidate(digest);
+        }
+        VerifiedToken verified = verifier.apply(token);
+        cache.put(digest, verified);
+        return verified;
+    }
+}
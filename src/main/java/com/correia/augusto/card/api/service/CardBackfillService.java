@@ -0,0 +1,71 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.repository.CardRepository;
+import com.correia.augusto.card.api.util.CardNumberMask;
+import com.correia.augusto.card.api.util.EncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardBackfillService {
+
+    private final CardRepository cardRepository;
+    private final EncryptionUtil encryptionUtil;
+    private final TransactionTemplate transactionTemplate;
+    private final CardLookupCache cardLookupCache;
+
+    private static final int PAGE_SIZE = 500;
+    private static final UUID INICIO = new UUID(0, 0);
+
+    // Cada página começa depois do último id visto, então cartões que falham ao decifrar não travam o laço.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int total = 0;
+        UUID afterId = INICIO;
+        while (afterId != null) {
+            UUID inicio = afterId;
+            Pagina pagina = transactionTemplate.execute(status -> backfillPage(inicio));
+            total += pagina.updated();
+            afterId = pagina.lastId();
+        }
+
+        if (total > 0) {
+            log.info("Backfill do token de busca e do número mascarado concluído - {} cartões atualizados", total);
+        }
+    }
+
+    Pagina backfillPage(UUID afterId) {
+        List<Card> cards = cardRepository.findBackfillPage(afterId, Limit.of(PAGE_SIZE));
+        int updated = 0;
+        for (Card card : cards) {
+            try {
+                String number = encryptionUtil.decrypt(card.getNumber());
+                if (card.getNumberHash() == null) {
+                    card.setNumberHash(encryptionUtil.hash(number));
+                }
+                if (card.getMaskedNumber() == null) {
+                    card.setMaskedNumber(CardNumberMask.mask(number));
+                }
+                cardLookupCache.invalidate(card.getId(), card.getNumberHash());
+                updated++;
+            } catch (Exception e) {
+                log.warn("Não foi possível preencher os dados derivados do cartão {}", card.getId(), e);
+            }
+        }
+        return new Pagina(updated, cards.isEmpty() ? null : cards.get(cards.size() - 1).getId());
+    }
+
+    // lastId null: não há mais cartões pendentes depois do cursor
+    record Pagina(int updated, UUID lastId) {}
+}
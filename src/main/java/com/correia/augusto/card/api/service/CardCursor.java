@@ -0,0 +1,25 @@
+package com.correia.augusto.card.api.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+// Posição da última linha entregue na ordem (created_at DESC, id DESC), serializada como token opaco.
+record CardCursor(Instant createdAt, UUID id) {
+
+    String encode() {
+        String raw = createdAt.getEpochSecond() + ":" + createdAt.getNano() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CardCursor decode(String token) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":", 3);
+            return new CardCursor(Instant.ofEpochSecond(Long.parseLong(partes[0]), Long.parseLong(partes[1])),
+                    UUID.fromString(partes[2]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.exception.ApplicationException;
+import com.correia.augusto.card.api.util.ByteLineReader;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Leitura (thread própria) -> parse/criptografia (pool do tamanho dos núcleos) -> consumidor (thread chamadora).
+// Os blocos chegam ao consumidor na ordem do arquivo, e a fila limitada segura a leitura quando o consumidor atrasa.
+@Component
+public class CardIngestionPipeline {
+
+    static final int CHUNK_SIZE = 100;
+
+    private final ExecutorService readers;
+    private final ExecutorService workers;
+    private final int queueCapacity;
+
+    public CardIngestionPipeline(@Value("${card.ingestion.parallelism:0}") int parallelism,
+                                 @Value("${card.ingestion.queue-capacity:16}") int queueCapacity) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.readers = Executors.newCachedThreadPool(daemonThreads("lote-reader-"));
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("lote-worker-"));
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Processa as linhas restantes do reader. Devolve o número da última linha lida do arquivo,
+     * ou -1 se o consumidor pediu para parar antes do fim.
+     */
+    public <T> int run(ByteLineReader reader, int linhaInicial, LineParser<T> parser,
+                       ChunkConsumer<T> consumer) throws IOException {
+        BlockingQueue<Future<Chunk<T>>> fila = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean cancelado = new AtomicBoolean();
+        AtomicInteger ultimaLinha = new AtomicInteger(linhaInicial);
+        CountDownLatch leituraEncerrada = new CountDownLatch(1);
+
+        Future<?> leitura = readers.submit(() -> {
+            try {
+                read(reader, linhaInicial, parser, fila, cancelado, ultimaLinha);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                leituraEncerrada.countDown();
+            }
+        });
+
+        try {
+            while (true) {
+                Chunk<T> chunk = await(fila.take());
+                if (chunk == null) {
+                    return ultimaLinha.get();
+                }
+                if (!consumer.accept(chunk.linhas(), chunk.ultimaLinha())) {
+                    return -1;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApplicationException("Processamento do arquivo interrompido", e);
+        } finally {
+            cancelado.set(true);
+            leitura.cancel(true);
+            awaitQuietly(leituraEncerrada);
+        }
+    }
+
+    private <T> void read(ByteLineReader reader, int linhaInicial, LineParser<T> parser,
+                          BlockingQueue<Future<Chunk<T>>> fila, AtomicBoolean cancelado,
+                          AtomicInteger ultimaLinha) throws InterruptedException {
+        int numero = linhaInicial;
+        try {
+            RawChunk bloco = new RawChunk();
+            while (!cancelado.get() && reader.readLine()) {
+                bloco.add(reader.buffer(), reader.start(), reader.end());
+                if (bloco.linhas == CHUNK_SIZE) {
+                    fila.put(parse(bloco, numero + 1, parser));
+                    numero += bloco.linhas;
+                    bloco = new RawChunk();
+                }
+            }
+            if (bloco.linhas > 0) {
+                fila.put(parse(bloco, numero + 1, parser));
+                numero += bloco.linhas;
+            }
+            ultimaLinha.set(numero);
+            fila.put(CompletableFuture.completedFuture(null));
+        } catch (IOException e) {
+            fila.put(CompletableFuture.failedFuture(new UncheckedIOException(e)));
+        } catch (RuntimeException e) {
+            fila.put(CompletableFuture.failedFuture(e));
+        }
+    }
+
+    private <T> Future<Chunk<T>> parse(RawChunk bloco, int primeiraLinha, LineParser<T> parser) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Line<T>> validas = new ArrayList<>(bloco.linhas);
+            int inicio = 0;
+            for (int i = 0; i < bloco.linhas; i++) {
+                int fim = bloco.fins[i];
+                T conteudo = parser.parse(bloco.dados, inicio, fim);
+                if (conteudo != null) {
+                    validas.add(new Line<>(primeiraLinha + i, conteudo));
+                }
+                inicio = fim;
+            }
+            return new Chunk<>(validas, primeiraLinha + bloco.linhas - 1);
+        }, workers);
+    }
+
+    private static <T> T await(Future<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new ApplicationException("Falha no processamento do arquivo", cause);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    public record Line<T>(int numero, T conteudo) {}
+
+    private record Chunk<T>(List<Line<T>> linhas, int ultimaLinha) {}
+
+    // Linhas de um bloco copiadas para um único array, sem terminadores; fins[i] é onde a linha i termina.
+    private static final class RawChunk {
+        private byte[] dados = new byte[CHUNK_SIZE * 32];
+        private final int[] fins = new int[CHUNK_SIZE];
+        private int tamanho;
+        private int linhas;
+
+        private void add(byte[] buffer, int inicio, int fim) {
+            int length = fim - inicio;
+            if (tamanho + length > dados.length) {
+                dados = Arrays.copyOf(dados, Math.max(dados.length * 2, tamanho + length));
+            }
+            System.arraycopy(buffer, inicio, dados, tamanho, length);
+            tamanho += length;
+            fins[linhas++] = tamanho;
+        }
+    }
+
+    @FunctionalInterface
+    public interface LineParser<T> {
+        // Recebe a linha como faixa [inicio, fim) de um array compartilhado pelo bloco; null descarta a linha.
+        T parse(byte[] linha, int inicio, int fim);
+    }
+
+    @FunctionalInterface
+    public interface ChunkConsumer<T> {
+        // linhas traz só as linhas aceitas pelo parser; ultimaLinha é a última linha do arquivo coberta pelo bloco.
+        // false encerra o processamento
+        boolean accept(List<Line<T>> linhas, int ultimaLinha);
+    }
+}
@@ -0,0 +1,72 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.CardResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+// Respostas de GET /api/cards/{id} e /api/cards/by-number em memória, limitadas e com TTL. Guarda só o CardResponse
+// (número mascarado) e o dono; a busca por número usa como chave o number_hash (HMAC), nunca o PAN.
+// Cartão não muda depois de gravado: só o backfill reescreve colunas derivadas e invalida as entradas. Cartão
+// inexistente não fica no cache, então um cadastro novo aparece na hora sem precisar invalidar nada.
+@Component
+public class CardLookupCache {
+
+    public record CachedCard(Long userId, CardResponse response) {}
+
+    private final Cache<UUID, CachedCard> byId;
+    private final Cache<HashCode, CachedCard> byNumberHash;
+
+    public CardLookupCache(MeterRegistry meterRegistry,
+                           @Value("${card.lookup-cache.maximum-size:50000}") long maximumSize,
+                           @Value("${card.lookup-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.byId = build(maximumSize, expireAfterWrite, meterRegistry, "card_by_id");
+        this.byNumberHash = build(maximumSize, expireAfterWrite, meterRegistry, "card_by_number");
+    }
+
+    private static <K> Cache<K, CachedCard> build(long maximumSize, Duration expireAfterWrite,
+                                                  MeterRegistry meterRegistry, String name) {
+        Cache<K, CachedCard> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, name);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate()).tag("cache", name).register(meterRegistry);
+        return cache;
+    }
+
+    public Optional<CachedCard> getById(UUID id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    public Optional<CachedCard> getByNumberHash(byte[] numberHash) {
+        return Optional.ofNullable(byNumberHash.getIfPresent(HashCode.fromBytes(numberHash)));
+    }
+
+    public void putById(UUID id, CachedCard card) {
+        byId.put(id, card);
+    }
+
+    // A mesma entrada serve às duas buscas: quem achou pelo número também acha pelo id sem ir ao banco.
+    public void putByNumberHash(byte[] numberHash, UUID id, CachedCard card) {
+        byNumberHash.put(HashCode.fromBytes(numberHash), card);
+        byId.put(id, card);
+    }
+
+    public void invalidate(UUID id, byte[] numberHash) {
+        byId.invalidate(id);
+        if (numberHash != null) {
+            byNumberHash.invalidate(HashCode.fromBytes(numberHash));
+        }
+    }
+}
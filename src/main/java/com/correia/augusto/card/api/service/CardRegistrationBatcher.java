@@ -0,0 +1,187 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.repository.CardBulkWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Group commit do cadastro unitário: chamadas concorrentes de registerCard esperam até max-wait (ou até
+// max-batch-size pedidos) e são gravadas num único INSERT multi-linha, numa única transação, pagando um fsync
+// por lote em vez de um por cartão. Cada chamador recebe o próprio resultado: gravado ou duplicado.
+// Uma única thread grava; enquanto um lote está no banco, o próximo vai se formando na fila.
+@Component
+@Slf4j
+public class CardRegistrationBatcher {
+
+    private final CardBulkWriter cardBulkWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final Duration timeout;
+    private final BlockingQueue<Pedido> fila;
+    private final ExecutorService gravador;
+    // register enfileira sob a leitura; o gravador fecha a fila sob a escrita antes de falhar o que sobrou nela,
+    // então nenhum pedido entra depois da última drenagem
+    private final ReadWriteLock entrada = new ReentrantReadWriteLock();
+    private boolean encerrado;
+
+    public CardRegistrationBatcher(CardBulkWriter cardBulkWriter,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${card.registration.group-commit.enabled:false}") boolean enabled,
+                                   @Value("${card.registration.group-commit.max-batch-size:100}") int maxBatchSize,
+                                   @Value("${card.registration.group-commit.max-wait:5ms}") Duration maxWait,
+                                   @Value("${card.registration.group-commit.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${card.registration.group-commit.timeout:10s}") Duration timeout) {
+        this.cardBulkWriter = cardBulkWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.timeout = timeout;
+        this.encerrado = !enabled;
+        this.fila = new ArrayBlockingQueue<>(queueCapacity);
+        this.gravador = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("card-group-commit-"));
+        if (enabled) {
+            gravador.execute(this::loop);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Bloqueia até o lote do cartão ser confirmado, no máximo timeout. Devolve false se o número já estava
+    // cadastrado (no banco ou em outro pedido do mesmo lote). Estourado o timeout o chamador recebe 503, mas o
+    // cartão ainda pode ser gravado pelo lote em andamento.
+    public boolean register(Card card) {
+        Pedido pedido = new Pedido(card, new CompletableFuture<>());
+        entrada.readLock().lock();
+        try {
+            if (encerrado) {
+                throw new RejectedExecutionException("Cadastro de cartões encerrando");
+            }
+            if (!fila.offer(pedido)) {
+                throw new RejectedExecutionException("Fila de cadastro de cartões cheia");
+            }
+        } finally {
+            entrada.readLock().unlock();
+        }
+        try {
+            return pedido.resultado().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Falha no cadastro de cartão", e.getCause());
+        } catch (TimeoutException e) {
+            throw new RejectedExecutionException("Cadastro de cartão sem confirmação em " + timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Cadastro de cartão interrompido");
+        }
+    }
+
+    private void loop() {
+        List<Pedido> lote = new ArrayList<>(maxBatchSize);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                lote.add(fila.take());
+                long prazo = System.nanoTime() + maxWaitNanos;
+                while (lote.size() < maxBatchSize) {
+                    if (fila.drainTo(lote, maxBatchSize - lote.size()) > 0) {
+                        continue;
+                    }
+                    long restante = prazo - System.nanoTime();
+                    Pedido proximo = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : null;
+                    if (proximo == null) {
+                        break;
+                    }
+                    lote.add(proximo);
+                }
+                gravar(lote);
+                lote.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Error e) {
+            log.error("Gravador de cadastros de cartão parou; novos cadastros serão recusados", e);
+            throw e;
+        } finally {
+            falharPendentes(lote);
+        }
+    }
+
+    private void gravar(List<Pedido> lote) {
+        try {
+            Set<Pedido> novos = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<UUID> gravados = transactionTemplate.execute(status -> {
+                // o mesmo número duas vezes no lote: só o primeiro pedido vai para o INSERT
+                Set<ByteBuffer> vistos = new HashSet<>();
+                for (Pedido pedido : lote) {
+                    if (vistos.add(ByteBuffer.wrap(pedido.card().getNumberHash()))) {
+                        novos.add(pedido);
+                    }
+                }
+                List<Card> cards = lote.stream().filter(novos::contains).map(Pedido::card).toList();
+                int inseridos = cardBulkWriter.insertBatch(cards);
+                // menos linhas que o esperado: o número já estava no banco (a chave única ignorou a linha)
+                return inseridos == cards.size()
+                        ? null
+                        : cardBulkWriter.findPersistedIds(cards.stream().map(Card::getId).toList());
+            });
+            for (Pedido pedido : lote) {
+                boolean gravado = novos.contains(pedido)
+                        && (gravados == null || gravados.contains(pedido.card().getId()));
+                pedido.resultado().complete(gravado);
+            }
+        } catch (RuntimeException e) {
+            log.error("Falha ao gravar lote de {} cadastros de cartão", lote.size(), e);
+            lote.forEach(pedido -> pedido.resultado().completeExceptionally(e));
+        }
+    }
+
+    private void falharPendentes(List<Pedido> lote) {
+        entrada.writeLock().lock();
+        try {
+            encerrado = true;
+            fila.drainTo(lote);
+        } finally {
+            entrada.writeLock().unlock();
+        }
+        RejectedExecutionException encerrando = new RejectedExecutionException("Cadastro de cartões encerrando");
+        lote.forEach(pedido -> pedido.resultado().completeExceptionally(encerrando));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        gravador.shutdownNow();
+    }
+
+    private record Pedido(Card card, CompletableFuture<Boolean> resultado) {}
+}
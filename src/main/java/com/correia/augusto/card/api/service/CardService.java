@@ -1,31 +1,52 @@
 package com.correia.augusto.card.api.service;
 
+import com.correia.augusto.card.api.dto.CardPage;
 import com.correia.augusto.card.api.dto.CardRequest;
 import com.correia.augusto.card.api.dto.CardResponse;
+import com.correia.augusto.card.api.dto.CardView;
+import com.correia.augusto.card.api.dto.IngestionProgress;
 import com.correia.augusto.card.api.dto.ProcessamentoResult;
 import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.entities.LoteCheckpoint;
 import com.correia.augusto.card.api.entities.User;
 import com.correia.augusto.card.api.enums.CardType;
 import com.correia.augusto.card.api.exception.AuthenticationFailedException;
 import com.correia.augusto.card.api.exception.DuplicateDataException;
 import com.correia.augusto.card.api.exception.InvalidCardDataException;
 import com.correia.augusto.card.api.exception.ResourceNotFoundException;
+import com.correia.augusto.card.api.repository.CardBulkWriter;
 import com.correia.augusto.card.api.repository.CardRepository;
-import com.correia.augusto.card.api.repository.UserRepository;
+import com.correia.augusto.card.api.repository.LoteCheckpointRepository;
+import com.correia.augusto.card.api.security.UserIdentity;
+import com.correia.augusto.card.api.security.UserIdentityCache;
+import com.correia.augusto.card.api.service.CardIngestionPipeline.Line;
+import com.correia.augusto.card.api.service.CardLookupCache.CachedCard;
+import com.correia.augusto.card.api.service.LoteLayout.LoteHeader;
+import com.correia.augusto.card.api.util.ByteLineReader;
+import com.correia.augusto.card.api.util.CardNumberMask;
 import com.correia.augusto.card.api.util.EncryptionUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -34,37 +55,92 @@ public class CardService {
 
     public static final String USUARIO = "Usuário";
     private final CardRepository cardRepository;
-    private final UserRepository userRepository;
+    private final CardBulkWriter cardBulkWriter;
+    private final CardIngestionPipeline cardIngestionPipeline;
+    private final UserIdentityCache userIdentityCache;
     private final EncryptionUtil encryptionUtil;
-    private static final int BATCH_SIZE = 100;
+    private final LoteCheckpointRepository loteCheckpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LoteLayouts loteLayouts;
+    private final CardRegistrationBatcher cardRegistrationBatcher;
+    private final CardLookupCache cardLookupCache;
+
+    @Value("${card.ingestion.commit-interval:10000}")
+    private int commitInterval = 10_000;
+
+    @Value("${card.listing.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${card.listing.max-page-size:200}")
+    private int maxPageSize = 200;
 
     public void registerCard(CardRequest request, String userName) {
-        User user = userRepository.findByUsername(userName)
+        User user = userIdentityCache.find(userName)
+                .map(UserIdentity::toUser)
                 .orElseThrow(() -> new ResourceNotFoundException(USUARIO, userName));
 
-        if (cardRepository.existsByNumber(encryptionUtil.encrypt(request.number()))) {
-            throw new DuplicateDataException("Cartão já cadastrado para este usuário");
-        }
-
         validateCard(request);
 
         Card card = toEntity(request);
+        card.setNumberHash(encryptionUtil.hash(request.number()));
         card.setUser(user);
 
-        cardRepository.save(card);
+        // duplicado é decidido pela chave única no próprio INSERT, sem consulta prévia: um round trip,
+        // e duas requisições simultâneas com o mesmo número não passam as duas
+        boolean gravado = cardRegistrationBatcher.isEnabled()
+                ? cardRegistrationBatcher.register(card)
+                : cardBulkWriter.insertIfAbsent(card);
+        if (!gravado) {
+            throw new DuplicateDataException("Cartão já cadastrado para este usuário");
+        }
     }
 
-    public List<CardResponse> getCardsByUserId(Long userId) {
-        return cardRepository.findAllByUser(userId).stream()
-                .map(this::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public CardPage getCardsByUserId(Long userId, String cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+
+        // uma linha a mais só para saber se existe próxima página
+        Limit limit = Limit.of(pageSize + 1);
+        List<CardView> cards;
+        if (StringUtils.isBlank(cursor)) {
+            cards = cardRepository.findFirstPageByUser(userId, limit);
+        } else {
+            CardCursor after = CardCursor.decode(cursor);
+            cards = cardRepository.findPageByUserAfter(userId, after.createdAt(), after.id(), limit);
+        }
+
+        String nextCursor = null;
+        if (cards.size() > pageSize) {
+            cards = cards.subList(0, pageSize);
+            CardView last = cards.get(pageSize - 1);
+            nextCursor = new CardCursor(last.createdAt(), last.id()).encode();
+        }
+        return new CardPage(cards.stream().map(this::toResponse).toList(), nextCursor);
     }
 
+    // Sem transação aqui: com o cartão no cache não há ida ao banco; no miss a consulta do repositório é readOnly.
     public CardResponse getCardById(String cardId) {
-        Card card = cardRepository.findById(cardId)
+        UUID id = parseCardId(cardId).orElseThrow(() -> new ResourceNotFoundException("Cartão", cardId));
+        Optional<CachedCard> cached = cardLookupCache.getById(id);
+        if (cached.isPresent()) {
+            return cached.get().response();
+        }
+
+        CardView card = cardRepository.findViewById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cartão", cardId));
 
-        return toResponse(card);
+        CardResponse response = toResponse(card);
+        cardLookupCache.putById(id, new CachedCard(card.userId(), response));
+        return response;
+    }
+
+    // O id continua string na API; um valor que nem é UUID não pode existir, então é 404 como qualquer outro.
+    private static Optional<UUID> parseCardId(String cardId) {
+        try {
+            return Optional.of(UUID.fromString(cardId));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
     }
 
     private void validateCard(CardRequest request) {
@@ -80,6 +156,7 @@ public class CardService {
     private Card toEntity(CardRequest request) {
         return Card.builder()
                 .number(encryptionUtil.encrypt(request.number()))
+                .maskedNumber(CardNumberMask.mask(request.number()))
                 .holderName(request.holderName())
                 .expirationDate(request.expirationDate())
                 .cvv(request.cvv())
@@ -87,76 +164,279 @@ public class CardService {
                 .build();
     }
 
-    private CardResponse toResponse(Card card) {
+    // O número mascarado é gravado junto com o cartão; só linhas ainda não cobertas pelo backfill decifram.
+    private CardResponse toResponse(CardView card) {
+        String maskedNumber = card.maskedNumber() != null
+                ? card.maskedNumber()
+                : CardNumberMask.mask(encryptionUtil.decrypt(card.number()));
         return new CardResponse(
-                card.getId(),
-                maskCardNumber(encryptionUtil.decrypt(card.getNumber())),
-                card.getHolderName(),
-                card.getExpirationDate(),
-                card.getType(),
-                card.getCreatedAt()
+                card.id().toString(),
+                maskedNumber,
+                card.holderName(),
+                card.expirationDate(),
+                card.type(),
+                card.createdAt()
         );
     }
 
-    @Transactional
-    public ProcessamentoResult processCardFile(byte[] conteudoArquivo, String username) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(conteudoArquivo)))) {
+    public ProcessamentoResult processCardFile(InputStream conteudoArquivo, String username) throws IOException {
+        return processCardFile(conteudoArquivo, username, null);
+    }
+
+    public ProcessamentoResult processCardFile(InputStream conteudoArquivo, String username, String layout) throws IOException {
+        return processCardFile(conteudoArquivo, username, layout, IngestionProgressListener.NONE);
+    }
+
+    // Sem transação única: cada grupo de commitInterval linhas é confirmado junto com o checkpoint do lote,
+    // e reenviar o mesmo lote retoma a partir da última linha confirmada.
+    public ProcessamentoResult processCardFile(InputStream conteudoArquivo, String username, String layout,
+                                               IngestionProgressListener listener) throws IOException {
+        LoteLayout loteLayout = loteLayouts.get(layout);
+        try (ByteLineReader reader = new ByteLineReader(conteudoArquivo, loteLayout.maxLineLength())) {
 
-            User user = userRepository.findByUsername(username)
+            User user = userIdentityCache.find(username)
+                    .map(UserIdentity::toUser)
                     .orElseThrow(() -> new ResourceNotFoundException(USUARIO, username));
 
-            String header = reader.readLine();
-            String nome = header.substring(0, 29).trim();
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-            LocalDate dataProcessamento = LocalDate.parse(header.substring(29, 37).trim(), formatter);
-
-            String lote = header.substring(37, 45).trim();
-            int qtdRegistros = Integer.parseInt(header.substring(45, 51).trim());
-
-            List<Card> batch = new ArrayList<>(BATCH_SIZE);
-            int cartoesProcessados = 0;
-            int linhasLidas = 1;
-
-            String linha;
-            while (cartoesProcessados < qtdRegistros && (linha = reader.readLine()) != null) {
-                linhasLidas++;
-
-                String cardNumber = linha.substring(7, linha.length() - 1).trim();
-                if (cardNumber.trim().length() >= 13 && cardNumber.trim().length() <= 19) {
-
-                    String encryptedNumber = encryptionUtil.encrypt(cardNumber.trim());
-
-                    boolean existsInBatch = batch.stream().anyMatch(card -> card.getNumber().equals(encryptedNumber));
-
-                    if (!existsInBatch && !cardRepository.existsByNumber(encryptedNumber)) {
-                        Card card = new Card();
-                        card.setNumber(encryptedNumber);
-                        card.setLote(lote);
-                        card.setDataProcessamento(dataProcessamento);
-                        card.setType(CardType.CREDIT);
-                        card.setHolderName(nome);
-                        card.setCvv("000");
-                        card.setExpirationDate(LocalDate.of(2099, 12, 31));
-                        card.setUser(user);
-                        batch.add(card);
-
-                        if (batch.size() >= BATCH_SIZE) {
-                            cardRepository.saveAll(batch);
-                            batch.clear();
-                        }
-                        cartoesProcessados++;
-                    } else {
-                        log.info("Card number already exists: {}", encryptedNumber);
-                    }
+            if (!reader.readLine()) {
+                throw new IllegalArgumentException("Arquivo do lote vazio");
+            }
+            LoteHeader header = loteLayout.parseHeader(reader.buffer(), reader.start(), reader.end());
+            String nome = header.nome();
+            LocalDate dataProcessamento = header.dataProcessamento();
+            String lote = header.lote();
+            int qtdRegistros = header.qtdRegistros();
+
+            if (qtdRegistros <= 0) {
+                return new ProcessamentoResult(0, 1, lote);
+            }
+
+            MessageDigest digest = sha256();
+            digest.update(reader.buffer(), reader.start(), reader.end() - reader.start());
+
+            LoteCheckpoint checkpoint = loteCheckpointRepository.findByLoteAndUserId(lote, user.getId())
+                    .orElseGet(() -> LoteCheckpoint.builder().lote(lote).user(user).ultimaLinha(1).build());
+            if (checkpoint.getId() != null) {
+                // O checkpoint só vale para o mesmo arquivo: o trecho já confirmado precisa bater com o digest gravado.
+                skipLines(reader, loteLayout, checkpoint.getUltimaLinha(), digest);
+                boolean mesmoConteudo = MessageDigest.isEqual(snapshot(digest), checkpoint.getDigest())
+                        && !(checkpoint.isConcluido() && checkpoint.getCartoesProcessados() < qtdRegistros
+                        && reader.readLine());
+                if (!mesmoConteudo) {
+                    throw new IllegalArgumentException("Lote " + lote + " já enviado com outro conteúdo");
+                }
+                if (checkpoint.isConcluido()) {
+                    log.info("Lote {} já processado, nada a retomar", lote);
+                    return new ProcessamentoResult(checkpoint.getCartoesProcessados(), checkpoint.getUltimaLinha(), lote);
+                }
+                log.info("Retomando lote {} a partir da linha {}", lote, checkpoint.getUltimaLinha() + 1);
+                checkpoint.setUser(user);
+            }
+
+            Ingestao ingestao = new Ingestao(checkpoint, qtdRegistros, nome, dataProcessamento, listener, digest);
+            int ultimaLinha = cardIngestionPipeline.run(reader, checkpoint.getUltimaLinha(),
+                    (linha, inicio, fim) -> parseCardLine(loteLayout, linha, inicio, fim),
+                    (linhas, ultima) -> ingestao.accept(linhas, ultima));
+            if (ultimaLinha >= 0) {
+                ingestao.commit(ultimaLinha, true);
+            }
+
+            return new ProcessamentoResult(checkpoint.getCartoesProcessados(), checkpoint.getUltimaLinha(), lote);
+        }
+    }
+
+    // Linhas já confirmadas em um envio anterior não passam de novo por criptografia nem pelo banco; só o hash
+    // do número entra no digest, para conferir que o arquivo é o mesmo do checkpoint.
+    private void skipLines(ByteLineReader reader, LoteLayout loteLayout, int ultimaLinha, MessageDigest digest)
+            throws IOException {
+        int numero = 1;
+        while (numero < ultimaLinha && reader.readLine()) {
+            numero++;
+            byte[] cardNumber = loteLayout.cardNumber(reader.buffer(), reader.start(), reader.end());
+            if (cardNumber != null) {
+                updateDigest(digest, numero, encryptionUtil.hashBytes(cardNumber));
+            }
+        }
+    }
+
+    // Digest do cabeçalho e de (número da linha, hash do cartão) de cada cartão até a última linha confirmada.
+    private static void updateDigest(MessageDigest digest, int numero, byte[] numberHash) {
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(numero).array());
+        digest.update(numberHash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // digest() zera o estado; a cópia deixa o original seguir acumulando as próximas linhas.
+    private static byte[] snapshot(MessageDigest digest) {
+        try {
+            return ((MessageDigest) digest.clone()).digest();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Executado nos workers do pipeline. Cabeçalho, trailer e linhas de outro tipo são descartados (null); um
+    // detalhe sem número válido segue como LINHA_REJEITADA para entrar na contagem de erros.
+    private CardLine parseCardLine(LoteLayout loteLayout, byte[] linha, int inicio, int fim) {
+        if (!loteLayout.isDetalhe(linha, inicio, fim)) {
+            return null;
+        }
+        byte[] cardNumber = loteLayout.cardNumber(linha, inicio, fim);
+        if (cardNumber == null) {
+            return LINHA_REJEITADA;
+        }
+        return new CardLine(Base64.getEncoder().encodeToString(encryptionUtil.encryptBytes(cardNumber)),
+                encryptionUtil.hashBytes(cardNumber), CardNumberMask.mask(cardNumber));
+    }
+
+    // Blocos anteriores já foram gravados (confirmados ou na mesma transação), então a consulta IN também cobre
+    // repetições entre blocos. Se um cadastro concorrente gravar o mesmo número entre a consulta e o insert, o lote
+    // volta com menos linhas que o limite e as linhas seguintes do bloco completam a diferença.
+    private ChunkResult saveChunk(List<Line<CardLine>> chunk, int limite, String nome, LocalDate dataProcessamento,
+                                  String lote, User user) {
+        Set<ByteBuffer> existentes = new HashSet<>();
+        List<byte[]> hashes = chunk.stream()
+                .filter(line -> line.conteudo() != LINHA_REJEITADA)
+                .map(line -> line.conteudo().numberHash())
+                .toList();
+        for (byte[] hash : cardRepository.findExistingNumberHashes(hashes)) {
+            existentes.add(ByteBuffer.wrap(hash));
+        }
+
+        int inseridos = 0;
+        int duplicados = 0;
+        int erros = 0;
+        int avaliadas = 0;
+        while (avaliadas < chunk.size() && inseridos < limite) {
+            List<Card> batch = new ArrayList<>(Math.min(chunk.size() - avaliadas, limite - inseridos));
+            while (avaliadas < chunk.size() && batch.size() < limite - inseridos) {
+                Line<CardLine> line = chunk.get(avaliadas++);
+                CardLine cardLine = line.conteudo();
+                if (cardLine == LINHA_REJEITADA) {
+                    erros++;
+                    continue;
                 }
+                if (!existentes.add(ByteBuffer.wrap(cardLine.numberHash()))) {
+                    log.info("Card number already exists: linha {}", line.numero());
+                    duplicados++;
+                    continue;
+                }
+                batch.add(toCard(cardLine, nome, dataProcessamento, lote, user));
             }
 
-            if (!batch.isEmpty()) {
-                cardRepository.saveAll(batch);
+            int gravados = batch.isEmpty() ? 0 : cardBulkWriter.insert(batch);
+            inseridos += gravados;
+            duplicados += batch.size() - gravados;
+        }
+
+        int linhaLimite = inseridos >= limite ? chunk.get(avaliadas - 1).numero() : 0;
+        return new ChunkResult(inseridos, duplicados, erros, avaliadas, linhaLimite);
+    }
+
+    private static Card toCard(CardLine cardLine, String nome, LocalDate dataProcessamento, String lote, User user) {
+        Card card = new Card();
+        card.setNumber(cardLine.encryptedNumber());
+        card.setNumberHash(cardLine.numberHash());
+        card.setMaskedNumber(cardLine.maskedNumber());
+        card.setLote(lote);
+        card.setDataProcessamento(dataProcessamento);
+        card.setType(CardType.CREDIT);
+        card.setHolderName(nome);
+        card.setCvv("000");
+        card.setExpirationDate(LocalDate.of(2099, 12, 31));
+        card.setUser(user);
+        return card;
+    }
+
+    private record CardLine(String encryptedNumber, byte[] numberHash, String maskedNumber) {}
+
+    private static final CardLine LINHA_REJEITADA = new CardLine(null, null, null);
+
+    private record ChunkResult(int inseridos, int duplicados, int erros, int avaliadas, int linhaLimite) {}
+
+    private record Bloco(List<Line<CardLine>> linhas, int ultimaLinha) {}
+
+    // Acumula os blocos do pipeline até o intervalo de commit; o checkpoint só avança junto com os cartões gravados.
+    private final class Ingestao {
+        private final LoteCheckpoint checkpoint;
+        private final int qtdRegistros;
+        private final String nome;
+        private final LocalDate dataProcessamento;
+        private final IngestionProgressListener listener;
+        private final MessageDigest digest;
+        private final List<Bloco> pendentes = new ArrayList<>();
+        private int linhasPendentes;
+
+        private Ingestao(LoteCheckpoint checkpoint, int qtdRegistros, String nome, LocalDate dataProcessamento,
+                         IngestionProgressListener listener, MessageDigest digest) {
+            this.checkpoint = checkpoint;
+            this.qtdRegistros = qtdRegistros;
+            this.nome = nome;
+            this.dataProcessamento = dataProcessamento;
+            this.listener = listener;
+            this.digest = digest;
+        }
+
+        private boolean accept(List<Line<CardLine>> linhas, int ultimaLinha) {
+            linhasPendentes += linhas.size();
+            pendentes.add(new Bloco(linhas, ultimaLinha));
+            if (linhasPendentes < commitInterval) {
+                return true;
             }
+            return commit(ultimaLinha, false);
+        }
 
-            return new ProcessamentoResult(cartoesProcessados, linhasLidas, lote);
+        private boolean commit(int ultimaLinha, boolean fimDoArquivo) {
+            boolean continuar = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                for (Bloco bloco : pendentes) {
+                    ChunkResult result = saveChunk(bloco.linhas(), qtdRegistros - checkpoint.getCartoesProcessados(),
+                            nome, dataProcessamento, checkpoint.getLote(), checkpoint.getUser());
+                    checkpoint.setCartoesProcessados(checkpoint.getCartoesProcessados() + result.inseridos());
+                    checkpoint.setDuplicados(checkpoint.getDuplicados() + result.duplicados());
+                    checkpoint.setErros(checkpoint.getErros() + result.erros());
+                    checkpoint.setAvaliadas(checkpoint.getAvaliadas() + result.avaliadas());
+                    if (checkpoint.getCartoesProcessados() >= qtdRegistros) {
+                        checkpoint.setUltimaLinha(result.linhaLimite());
+                        checkpoint.setConcluido(true);
+                        acumularDigest(bloco.linhas(), result.linhaLimite());
+                        break;
+                    }
+                    checkpoint.setUltimaLinha(bloco.ultimaLinha());
+                    acumularDigest(bloco.linhas(), bloco.ultimaLinha());
+                }
+                if (fimDoArquivo && !checkpoint.isConcluido()) {
+                    checkpoint.setUltimaLinha(ultimaLinha);
+                    checkpoint.setConcluido(true);
+                }
+                checkpoint.setDigest(snapshot(digest));
+                loteCheckpointRepository.save(checkpoint);
+                return !checkpoint.isConcluido();
+            }));
+            pendentes.clear();
+            linhasPendentes = 0;
+
+            listener.onProgress(new IngestionProgress(checkpoint.getLote(), checkpoint.getUltimaLinha(),
+                    checkpoint.getCartoesProcessados(), checkpoint.getDuplicados(), checkpoint.getErros()));
+            return continuar;
+        }
+
+        private void acumularDigest(List<Line<CardLine>> linhas, int ultimaLinha) {
+            for (Line<CardLine> line : linhas) {
+                if (line.numero() > ultimaLinha) {
+                    break;
+                }
+                if (line.conteudo() == LINHA_REJEITADA) {
+                    continue;
+                }
+                CardService.updateDigest(digest, line.numero(), line.conteudo().numberHash());
+            }
         }
     }
 
@@ -167,24 +447,27 @@ public class CardService {
             throw new InvalidCardDataException("Número de cartão inválido");
         }
 
-        User user = userRepository.findByUsername(username)
+        UserIdentity user = userIdentityCache.find(username)
                 .orElseThrow(() -> new ResourceNotFoundException(USUARIO, username));
 
-        String encryptedNumber = encryptionUtil.encrypt(cardNumber);
-
-        Card card = cardRepository.findByEncryptedNumber(encryptedNumber)
-                .orElseThrow(() -> new ResourceNotFoundException("Cartão" , encryptedNumber));
-
-        if (!card.getUser().getId().equals(user.getId())) {
-            throw new AuthenticationFailedException("Cartão não pertence ao usuário");
+        byte[] numberHash = encryptionUtil.hash(cardNumber);
+        Optional<CachedCard> cached = cardLookupCache.getByNumberHash(numberHash);
+        if (cached.isPresent()) {
+            if (!cached.get().userId().equals(user.id())) {
+                throw new AuthenticationFailedException("Cartão não pertence ao usuário");
+            }
+            return cached.get().response();
         }
 
-        log.debug("Cartão encontrado: {}", card.getId());
+        CardView card = cardRepository.findViewByNumberHashAndUser(numberHash, user.id())
+                .orElseThrow(() -> cardRepository.existsByNumberHash(numberHash)
+                        ? new AuthenticationFailedException("Cartão não pertence ao usuário")
+                        : new ResourceNotFoundException("Cartão", CardNumberMask.mask(cardNumber)));
 
-        return toResponse(card);
-    }
+        log.debug("Cartão encontrado: {}", card.id());
 
-    private String maskCardNumber(String number) {
-        return number.replaceAll("(?<=.{4}).(?=.{4})", "*");
+        CardResponse response = toResponse(card);
+        cardLookupCache.putByNumberHash(numberHash, card.id(), new CachedCard(card.userId(), response));
+        return response;
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.IngestionProgress;
+
+@FunctionalInterface
+public interface IngestionProgressListener {
+
+    IngestionProgressListener NONE = progress -> {};
+
+    void onProgress(IngestionProgress progress);
+}
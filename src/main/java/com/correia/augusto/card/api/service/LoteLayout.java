@@ -0,0 +1,205 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.config.LoteLayoutProperties.Campo;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.DetalheSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.HeaderSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.LayoutSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.TrailerSpec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+// Layout posicional compilado: a especificação vira uma tabela de posições em campos int,
+// e o parse da linha lê direto dos bytes, sem String intermediária.
+public final class LoteLayout {
+
+    private static final int NUMERO_MIN = 13;
+    private static final int NUMERO_MAX = 19;
+    // teto de tamanho de linha: algumas vezes o registro do layout, com folga para preenchimento em branco
+    private static final int LINHA_FATOR = 4;
+    private static final int LINHA_MINIMA = 1024;
+
+    private final String nome;
+    private final int nomeInicio;
+    private final int nomeFim;
+    private final int anoInicio;
+    private final int mesInicio;
+    private final int diaInicio;
+    private final int loteInicio;
+    private final int loteFim;
+    private final int quantidadeInicio;
+    private final int quantidadeFim;
+    private final int headerMinimo;
+    private final byte[] prefixoDetalhe;
+    private final int numeroInicio;
+    private final int numeroFim;
+    private final byte[] prefixoTrailer;
+
+    private LoteLayout(String nome, HeaderSpec header, DetalheSpec detalhe, TrailerSpec trailer) {
+        this.nome = nome;
+        this.nomeInicio = header.nome().inicio();
+        this.nomeFim = header.nome().fim();
+
+        Campo data = header.dataProcessamento();
+        String formato = header.formatoData();
+        if (formato.length() != data.fim() - data.inicio()) {
+            throw invalido(nome, "header.formato-data não cobre o campo data-processamento");
+        }
+        this.anoInicio = data.inicio() + posicao(nome, formato, "yyyy");
+        this.mesInicio = data.inicio() + posicao(nome, formato, "MM");
+        this.diaInicio = data.inicio() + posicao(nome, formato, "dd");
+
+        this.loteInicio = header.lote().inicio();
+        this.loteFim = header.lote().fim();
+        this.quantidadeInicio = header.quantidade().inicio();
+        this.quantidadeFim = header.quantidade().fim();
+        this.headerMinimo = Math.max(Math.max(nomeFim, data.fim()), Math.max(loteFim, quantidadeFim));
+
+        this.prefixoDetalhe = detalhe.prefixo().getBytes(StandardCharsets.US_ASCII);
+        this.numeroInicio = detalhe.numero().inicio();
+        this.numeroFim = detalhe.numero().fim();
+        this.prefixoTrailer = trailer == null ? new byte[0] : trailer.prefixo().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static LoteLayout compile(String nome, LayoutSpec spec) {
+        if (spec == null || spec.header() == null || spec.detalhe() == null) {
+            throw invalido(nome, "header e detalhe são obrigatórios");
+        }
+        HeaderSpec header = spec.header();
+        DetalheSpec detalhe = spec.detalhe();
+        validar(nome, "header.nome", header.nome());
+        validar(nome, "header.data-processamento", header.dataProcessamento());
+        validar(nome, "header.lote", header.lote());
+        validar(nome, "header.quantidade", header.quantidade());
+        if (detalhe.numero() == null || detalhe.numero().inicio() < 0
+                || (detalhe.numero().fim() > 0 && detalhe.numero().fim() <= detalhe.numero().inicio())) {
+            throw invalido(nome, "detalhe.numero inválido");
+        }
+        if (header.quantidade().fim() - header.quantidade().inicio() > 9) {
+            throw invalido(nome, "header.quantidade maior que 9 posições");
+        }
+        return new LoteLayout(nome, header, detalhe, spec.trailer());
+    }
+
+    public String nome() {
+        return nome;
+    }
+
+    // Maior linha aceita no arquivo; acima disso o lote é recusado (400) sem bufferizar o resto.
+    public int maxLineLength() {
+        int registro = Math.max(headerMinimo, Math.max(numeroInicio, numeroFim) + NUMERO_MAX);
+        return Math.max(LINHA_MINIMA, LINHA_FATOR * registro);
+    }
+
+    public LoteHeader parseHeader(byte[] linha, int inicio, int fim) {
+        if (fim - inicio < headerMinimo) {
+            throw new IllegalArgumentException("Cabeçalho do lote inválido para o layout " + nome);
+        }
+        LocalDate dataProcessamento;
+        try {
+            dataProcessamento = LocalDate.of(digits(linha, inicio + anoInicio, inicio + anoInicio + 4),
+                    digits(linha, inicio + mesInicio, inicio + mesInicio + 2),
+                    digits(linha, inicio + diaInicio, inicio + diaInicio + 2));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Data de processamento inválida no cabeçalho do lote", e);
+        }
+        return new LoteHeader(
+                text(linha, inicio + nomeInicio, inicio + nomeFim),
+                dataProcessamento,
+                text(linha, inicio + loteInicio, inicio + loteFim),
+                digits(linha, inicio + quantidadeInicio, inicio + quantidadeFim));
+    }
+
+    // Linha de detalhe: tem o prefixo do detalhe e não é o trailer. Linhas em branco não são registro nenhum.
+    public boolean isDetalhe(byte[] linha, int inicio, int fim) {
+        return fim > inicio
+                && !(prefixoTrailer.length > 0 && startsWith(linha, inicio, fim, prefixoTrailer))
+                && startsWith(linha, inicio, fim, prefixoDetalhe);
+    }
+
+    // Devolve os bytes do número do cartão, ou null para trailer, linhas de outro tipo
+    // e linhas que não trazem um número de 13 a 19 posições.
+    public byte[] cardNumber(byte[] linha, int inicio, int fim) {
+        if (!isDetalhe(linha, inicio, fim)) {
+            return null;
+        }
+        int de = inicio + numeroInicio;
+        int ate = numeroFim > 0 ? Math.min(inicio + numeroFim, fim) : fim + numeroFim;
+        while (de < ate && linha[de] <= ' ') {
+            de++;
+        }
+        while (ate > de && linha[ate - 1] <= ' ') {
+            ate--;
+        }
+        int tamanho = ate - de;
+        if (tamanho < NUMERO_MIN || tamanho > NUMERO_MAX) {
+            return null;
+        }
+        return Arrays.copyOfRange(linha, de, ate);
+    }
+
+    private static boolean startsWith(byte[] linha, int inicio, int fim, byte[] prefixo) {
+        if (fim - inicio < prefixo.length) {
+            return false;
+        }
+        for (int i = 0; i < prefixo.length; i++) {
+            if (linha[inicio + i] != prefixo[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String text(byte[] linha, int de, int ate) {
+        while (de < ate && linha[de] <= ' ') {
+            de++;
+        }
+        while (ate > de && linha[ate - 1] <= ' ') {
+            ate--;
+        }
+        return new String(linha, de, ate - de, StandardCharsets.UTF_8);
+    }
+
+    private static int digits(byte[] linha, int de, int ate) {
+        while (de < ate && linha[de] == ' ') {
+            de++;
+        }
+        while (ate > de && linha[ate - 1] == ' ') {
+            ate--;
+        }
+        if (de == ate) {
+            throw new IllegalArgumentException("Campo numérico vazio no cabeçalho do lote");
+        }
+        int valor = 0;
+        for (int i = de; i < ate; i++) {
+            int digito = linha[i] - '0';
+            if (digito < 0 || digito > 9) {
+                throw new IllegalArgumentException("Campo numérico inválido no cabeçalho do lote");
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private static int posicao(String nome, String formato, String parte) {
+        int posicao = formato.indexOf(parte);
+        if (posicao < 0) {
+            throw invalido(nome, "header.formato-data sem " + parte);
+        }
+        return posicao;
+    }
+
+    private static void validar(String nome, String campo, Campo posicao) {
+        if (posicao == null || posicao.inicio() < 0 || posicao.fim() <= posicao.inicio()) {
+            throw invalido(nome, campo + " inválido");
+        }
+    }
+
+    private static IllegalStateException invalido(String nome, String mensagem) {
+        return new IllegalStateException("Layout de lote '" + nome + "': " + mensagem);
+    }
+
+    public record LoteHeader(String nome, LocalDate dataProcessamento, String lote, int qtdRegistros) {}
+}
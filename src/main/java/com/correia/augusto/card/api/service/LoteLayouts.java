@@ -0,0 +1,38 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.config.LoteLayoutProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Layouts compilados uma vez na subida; um layout mal declarado impede a aplicação de subir.
+@Component
+public class LoteLayouts {
+
+    private final Map<String, LoteLayout> layouts = new HashMap<>();
+    private final LoteLayout padrao;
+
+    public LoteLayouts(LoteLayoutProperties properties) {
+        if (properties.definicoes() != null) {
+            properties.definicoes().forEach((nome, spec) -> layouts.put(nome, LoteLayout.compile(nome, spec)));
+        }
+        this.padrao = layouts.get(properties.padrao());
+        if (padrao == null) {
+            throw new IllegalStateException("Layout de lote padrão '" + properties.padrao() + "' não está definido");
+        }
+    }
+
+    // Sem nome, usa o layout padrão; nome desconhecido é erro do cliente.
+    public LoteLayout get(String nome) {
+        if (StringUtils.isBlank(nome)) {
+            return padrao;
+        }
+        LoteLayout layout = layouts.get(nome);
+        if (layout == null) {
+            throw new IllegalArgumentException("Layout de lote desconhecido: " + nome);
+        }
+        return layout;
+    }
+}
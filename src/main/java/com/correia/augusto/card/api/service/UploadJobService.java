@@ -0,0 +1,235 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.IngestionProgress;
+import com.correia.augusto.card.api.dto.ProcessamentoResult;
+import com.correia.augusto.card.api.dto.UploadJobResponse;
+import com.correia.augusto.card.api.entities.UploadJob;
+import com.correia.augusto.card.api.enums.UploadJobStatus;
+import com.correia.augusto.card.api.exception.ResourceNotFoundException;
+import com.correia.augusto.card.api.repository.UploadJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class UploadJobService {
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final UploadJobRepository uploadJobRepository;
+    private final CardService cardService;
+    private final LoteLayouts loteLayouts;
+    private final TransactionTemplate requiresNew;
+    private final ThreadPoolExecutor executor;
+    private final Path spoolDir;
+    private final String nodeId;
+
+    public UploadJobService(UploadJobRepository uploadJobRepository,
+                            CardService cardService,
+                            LoteLayouts loteLayouts,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${card.upload.jobs.concurrency:2}") int concurrency,
+                            @Value("${card.upload.jobs.queue-capacity:50}") int queueCapacity,
+                            @Value("${card.upload.jobs.spool-dir:${java.io.tmpdir}/card-uploads}") String spoolDir,
+                            @Value("${card.upload.jobs.node-id:}") String nodeId) throws IOException {
+        this.uploadJobRepository = uploadJobRepository;
+        this.cardService = cardService;
+        this.loteLayouts = loteLayouts;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("upload-job-"));
+        this.spoolDir = Files.createDirectories(Paths.get(spoolDir));
+        this.nodeId = StringUtils.isNotBlank(nodeId) ? nodeId : InetAddress.getLocalHost().getHostName();
+    }
+
+    public UploadJobResponse submit(MultipartFile file, String username, String layout) throws IOException {
+        loteLayouts.get(layout);
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw new RejectedExecutionException("Fila de processamento de arquivos cheia");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path path = spoolDir.resolve(id + ".txt");
+        file.transferTo(path);
+
+        UploadJob job = uploadJobRepository.save(UploadJob.builder()
+                .id(id)
+                .username(username)
+                .status(UploadJobStatus.QUEUED)
+                .filePath(path.toString())
+                .layout(layout)
+                .nodeId(nodeId)
+                .build());
+
+        UploadJobResponse response = toResponse(job);
+        try {
+            enqueue(job);
+        } catch (RejectedExecutionException e) {
+            finish(id, UploadJobStatus.FAILED, null, "Fila de processamento de arquivos cheia");
+            deleteQuietly(path);
+            throw e;
+        }
+        return response;
+    }
+
+    public UploadJobResponse getJob(String jobId, String username) {
+        return uploadJobRepository.findByIdAndUsername(jobId, username)
+                .map(this::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Job", jobId));
+    }
+
+    // Jobs deste nó que estavam na fila ou rodando quando ele caiu voltam para a fila se o arquivo ainda existir;
+    // o checkpoint do lote faz o processamento continuar da última linha confirmada. O spool é disco local, então
+    // jobs de outros nós (que podem estar rodando agora) nunca são tocados aqui.
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverJobs() {
+        for (UploadJob job : uploadJobRepository.findByNodeIdAndStatusIn(nodeId,
+                EnumSet.of(UploadJobStatus.QUEUED, UploadJobStatus.RUNNING))) {
+            if (job.getFilePath() != null && Files.exists(Paths.get(job.getFilePath()))) {
+                Path path = Paths.get(job.getFilePath());
+                log.info("Reenfileirando job {} após reinício", job.getId());
+                job.setStatus(UploadJobStatus.QUEUED);
+                uploadJobRepository.save(job);
+                try {
+                    enqueue(job);
+                } catch (RejectedExecutionException e) {
+                    finish(job.getId(), UploadJobStatus.FAILED, null, "Fila de processamento de arquivos cheia");
+                    deleteQuietly(path);
+                }
+            } else {
+                finish(job.getId(), UploadJobStatus.FAILED, null, "Arquivo do job não está mais disponível");
+            }
+        }
+    }
+
+    private void enqueue(UploadJob job) {
+        String id = job.getId();
+        String username = job.getUsername();
+        String layout = job.getLayout();
+        Path path = Paths.get(job.getFilePath());
+        executor.execute(() -> run(id, username, layout, path));
+    }
+
+    private void run(String jobId, String username, String layout, Path path) {
+        requiresNew.executeWithoutResult(status -> uploadJobRepository.findById(jobId)
+                .ifPresent(job -> job.setStatus(UploadJobStatus.RUNNING)));
+
+        ProgressReporter reporter = new ProgressReporter(jobId);
+        try (InputStream conteudo = Files.newInputStream(path)) {
+            ProcessamentoResult result = cardService.processCardFile(conteudo, username, layout, reporter);
+            finish(jobId, UploadJobStatus.COMPLETED, reporter.ultimo(result), null);
+            deleteQuietly(path);
+        } catch (Exception e) {
+            if (executor.isShutdown()) {
+                // nó desligando: o job continua RUNNING com o arquivo preservado e é retomado no próximo start
+                log.warn("Job {} interrompido pelo desligamento da aplicação", jobId);
+                return;
+            }
+            log.error("Falha no processamento do job {}", jobId, e);
+            finish(jobId, UploadJobStatus.FAILED, reporter.ultimo, StringUtils.abbreviate(e.getMessage(), 1000));
+            deleteQuietly(path);
+        }
+    }
+
+    private void finish(String jobId, UploadJobStatus status, IngestionProgress progress, String mensagem) {
+        requiresNew.executeWithoutResult(tx -> uploadJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setMensagem(mensagem);
+            job.setFilePath(null);
+            if (progress != null) {
+                job.setLote(progress.lote());
+                job.setLinhasLidas(progress.linhasLidas());
+                job.setCartoesProcessados(progress.cartoesProcessados());
+                job.setDuplicados(progress.duplicados());
+                job.setErros(progress.erros());
+            }
+        }));
+    }
+
+    private UploadJobResponse toResponse(UploadJob job) {
+        ProcessamentoResult resultado = job.getStatus() == UploadJobStatus.COMPLETED
+                ? new ProcessamentoResult(job.getCartoesProcessados(), job.getLinhasLidas(), job.getLote())
+                : null;
+        return new UploadJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getLote(),
+                job.getLinhasLidas(),
+                job.getCartoesProcessados(),
+                job.getDuplicados(),
+                job.getErros(),
+                resultado,
+                job.getMensagem(),
+                job.getCreatedAt(),
+                job.getUpdatedAt()
+        );
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o arquivo {}", path, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // O progresso é gravado em transação própria para ficar visível enquanto o arquivo ainda está sendo processado.
+    private final class ProgressReporter implements IngestionProgressListener {
+
+        private final String jobId;
+        private IngestionProgress ultimo;
+        private long ultimaGravacao = System.nanoTime();
+
+        private ProgressReporter(String jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void onProgress(IngestionProgress progress) {
+            ultimo = progress;
+            long agora = System.nanoTime();
+            if (agora - ultimaGravacao >= PROGRESS_INTERVAL_NANOS) {
+                ultimaGravacao = agora;
+                requiresNew.executeWithoutResult(status -> uploadJobRepository.updateProgress(jobId, progress.lote(),
+                        progress.linhasLidas(), progress.cartoesProcessados(), progress.duplicados(),
+                        progress.erros(), Instant.now()));
+            }
+        }
+
+        private IngestionProgress ultimo(ProcessamentoResult result) {
+            int duplicados = ultimo == null ? 0 : ultimo.duplicados();
+            int erros = ultimo == null ? 0 : ultimo.erros();
+            return new IngestionProgress(result.lote(), result.linhasLidas(), result.cartoesProcessados(), duplicados, erros);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.correia.augusto.card.api.service;
 
+import com.correia.augusto.card.api.entities.User;
 import com.correia.augusto.card.api.repository.UserRepository;
+import com.correia.augusto.card.api.security.UserIdentityCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -12,10 +14,14 @@ import org.springframework.stereotype.Service;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserIdentityCache userIdentityCache;
 
+    // Usado no login, que precisa da senha; aproveita a consulta para aquecer o cache de identidade.
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username)
+        User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        userIdentityCache.put(user);
+        return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.correia.augusto.card.api.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Lê o arquivo em blocos de bytes e expõe cada linha como uma faixa do buffer interno, sem criar String por linha.
+// A faixa só vale até a próxima chamada de readLine(); quem precisar guardar a linha copia os bytes.
+// Linha maior que maxLineLength (ex.: arquivo inteiro sem terminador) falha em vez de crescer o buffer sem limite.
+public final class ByteLineReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_MAX_LINE_LENGTH = 1024 * 1024;
+
+    private final InputStream in;
+    private final int maxLineLength;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int start;
+    private int end;
+    private boolean eof;
+
+    public ByteLineReader(InputStream in) {
+        this(in, DEFAULT_MAX_LINE_LENGTH);
+    }
+
+    public ByteLineReader(InputStream in, int maxLineLength) {
+        this.in = in;
+        this.maxLineLength = maxLineLength;
+    }
+
+    // Mesmo contrato do BufferedReader.readLine(): aceita \n, \r\n e \r, e a última linha pode vir sem terminador.
+    public boolean readLine() throws IOException {
+        while (true) {
+            for (int i = position; i < limit; i++) {
+                byte b = buffer[i];
+                if (b == '\n' || b == '\r') {
+                    if (b == '\r' && i + 1 == limit && !eof) {
+                        // o \n de um \r\n pode estar no próximo bloco
+                        break;
+                    }
+                    start = position;
+                    end = i;
+                    position = b == '\r' && i + 1 < limit && buffer[i + 1] == '\n' ? i + 2 : i + 1;
+                    return true;
+                }
+            }
+            if (limit - position > maxLineLength) {
+                throw new IllegalArgumentException("Linha do arquivo com mais de " + maxLineLength + " bytes");
+            }
+            if (eof) {
+                if (position == limit) {
+                    return false;
+                }
+                start = position;
+                end = limit;
+                position = limit;
+                return true;
+            }
+            fill();
+        }
+    }
+
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int end() {
+        return end;
+    }
+
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,34 @@
+package com.correia.augusto.card.api.util;
+
+import java.nio.charset.StandardCharsets;
+
+// Mantém os 4 primeiros e os 4 últimos dígitos; números com até 8 posições ficam como estão.
+public final class CardNumberMask {
+
+    private static final int VISIVEIS = 4;
+
+    private CardNumberMask() {
+    }
+
+    public static String mask(String number) {
+        if (number.length() <= VISIVEIS * 2) {
+            return number;
+        }
+        char[] masked = number.toCharArray();
+        for (int i = VISIVEIS; i < masked.length - VISIVEIS; i++) {
+            masked[i] = '*';
+        }
+        return new String(masked);
+    }
+
+    public static String mask(byte[] number) {
+        if (number.length <= VISIVEIS * 2) {
+            return new String(number, StandardCharsets.US_ASCII);
+        }
+        byte[] masked = number.clone();
+        for (int i = VISIVEIS; i < masked.length - VISIVEIS; i++) {
+            masked[i] = '*';
+        }
+        return new String(masked, StandardCharsets.US_ASCII);
+    }
+}
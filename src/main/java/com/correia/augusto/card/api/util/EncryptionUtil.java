@@ -5,50 +5,157 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.util.Base64;
 
 @Component
 public class EncryptionUtil {
 
+    private static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
+    private static final String LOOKUP_ALGORITHM = "HmacSHA256";
+    private static final byte[] LOOKUP_LABEL = "card-number-lookup".getBytes(StandardCharsets.US_ASCII);
+
     @Value("${encryption.secret-key}")
     private String secretKey;
 
     @Value("${encryption.salt}")
     private String salt;
 
+    // Chave própria do token de busca. Vazia: derivada de secret-key por HKDF com o rótulo "card-number-lookup",
+    // nunca igual à chave AES. Trocar a chave (ou a secret-key, sem lookup-key) muda todos os number_hash: zerar
+    // a coluna (UPDATE card_data SET number_hash = NULL) e reiniciar, e o CardBackfillService recalcula tudo.
+    @Value("${encryption.lookup-key:}")
+    private String lookupKey;
+
+    private volatile SecretKeySpec keySpec;
+    private volatile SecretKeySpec lookupKeySpec;
+
+    // Cipher não é thread-safe; cada thread mantém as suas instâncias já inicializadas.
+    // Em ECB (sem IV) o doFinal devolve o Cipher ao estado pós-init, então não há re-init por chamada.
+    private final ThreadLocal<Cipher> encryptCipher = ThreadLocal.withInitial(() -> newCipher(Cipher.ENCRYPT_MODE));
+    private final ThreadLocal<Cipher> decryptCipher = ThreadLocal.withInitial(() -> newCipher(Cipher.DECRYPT_MODE));
+    private final ThreadLocal<Mac> lookupMac = ThreadLocal.withInitial(this::newMac);
+
     public String encrypt(String plaintext) {
-        try {
-            byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-            byte[] aesKey = new byte[16];
-            System.arraycopy(keyBytes, 0, aesKey, 0, Math.min(keyBytes.length, aesKey.length));
+        return Base64.getEncoder().encodeToString(encryptBytes(plaintext.getBytes(StandardCharsets.UTF_8)));
+    }
 
-            SecretKeySpec keySpec = new SecretKeySpec(aesKey, "AES");
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, keySpec);
+    public String decrypt(String encryptedData) {
+        byte[] decoded;
+        try {
+            decoded = Base64.getDecoder().decode(encryptedData);
+        } catch (IllegalArgumentException e) {
+            throw new ApplicationException("Card number decryption failed", e);
+        }
+        return new String(decryptBytes(decoded), StandardCharsets.UTF_8);
+    }
 
-            byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
+    public byte[] encryptBytes(byte[] plaintext) {
+        try {
+            return encryptCipher.get().doFinal(plaintext);
         } catch (Exception e) {
+            encryptCipher.remove();
             throw new ApplicationException("Card number encryption failed", e);
         }
     }
 
-    public String decrypt(String encryptedData) {
+    public byte[] decryptBytes(byte[] encryptedData) {
         try {
-            byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-            byte[] aesKey = new byte[16];
-            System.arraycopy(keyBytes, 0, aesKey, 0, Math.min(keyBytes.length, aesKey.length));
+            return decryptCipher.get().doFinal(encryptedData);
+        } catch (Exception e) {
+            decryptCipher.remove();
+            throw new ApplicationException("Card number decryption failed", e);
+        }
+    }
 
-            SecretKeySpec keySpec = new SecretKeySpec(aesKey, "AES");
-            Cipher cipher = Cipher.getInstance("AES/ECB/PKCS5Padding");
-            cipher.init(Cipher.DECRYPT_MODE, keySpec);
+    public int encrypt(ByteBuffer plaintext, ByteBuffer output) {
+        try {
+            return encryptCipher.get().doFinal(plaintext, output);
+        } catch (Exception e) {
+            encryptCipher.remove();
+            throw new ApplicationException("Card number encryption failed", e);
+        }
+    }
 
-            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(encryptedData));
-            return new String(decrypted, StandardCharsets.UTF_8);
+    public int decrypt(ByteBuffer encryptedData, ByteBuffer output) {
+        try {
+            return decryptCipher.get().doFinal(encryptedData, output);
         } catch (Exception e) {
+            decryptCipher.remove();
             throw new ApplicationException("Card number decryption failed", e);
         }
     }
-}
\ No newline at end of file
+
+    // Token de busca (blind index): HMAC-SHA256 de 32 bytes, usado nas consultas por número em vez do texto cifrado.
+    public byte[] hash(String plaintext) {
+        return hashBytes(plaintext.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public byte[] hashBytes(byte[] plaintext) {
+        try {
+            return lookupMac.get().doFinal(plaintext);
+        } catch (Exception e) {
+            lookupMac.remove();
+            throw new ApplicationException("Card number hashing failed", e);
+        }
+    }
+
+    private Cipher newCipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, getKeySpec());
+            return cipher;
+        } catch (Exception e) {
+            throw new ApplicationException("Cipher initialization failed", e);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(LOOKUP_ALGORITHM);
+            mac.init(getLookupKeySpec());
+            return mac;
+        } catch (Exception e) {
+            throw new ApplicationException("Mac initialization failed", e);
+        }
+    }
+
+    private SecretKeySpec getLookupKeySpec() throws GeneralSecurityException {
+        SecretKeySpec spec = lookupKeySpec;
+        if (spec == null) {
+            byte[] key = lookupKey == null || lookupKey.isBlank()
+                    ? hkdf(secretKey.getBytes(StandardCharsets.UTF_8), salt.getBytes(StandardCharsets.UTF_8), LOOKUP_LABEL)
+                    : lookupKey.getBytes(StandardCharsets.UTF_8);
+            spec = new SecretKeySpec(key, LOOKUP_ALGORITHM);
+            lookupKeySpec = spec;
+        }
+        return spec;
+    }
+
+    // HKDF-SHA256 (RFC 5869) com um único bloco de saída: 32 bytes, o tamanho da chave do HMAC.
+    private static byte[] hkdf(byte[] chave, byte[] salt, byte[] rotulo) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(LOOKUP_ALGORITHM);
+        mac.init(new SecretKeySpec(salt.length == 0 ? new byte[32] : salt, LOOKUP_ALGORITHM));
+        byte[] prk = mac.doFinal(chave);
+        mac.init(new SecretKeySpec(prk, LOOKUP_ALGORITHM));
+        mac.update(rotulo);
+        mac.update((byte) 1);
+        return mac.doFinal();
+    }
+
+    private SecretKeySpec getKeySpec() {
+        SecretKeySpec spec = keySpec;
+        if (spec == null) {
+            byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
+            byte[] aesKey = new byte[16];
+            System.arraycopy(keyBytes, 0, aesKey, 0, Math.min(keyBytes.length, aesKey.length));
+            spec = new SecretKeySpec(aesKey, "AES");
+            keySpec = spec;
+        }
+        return spec;
+    }
+}
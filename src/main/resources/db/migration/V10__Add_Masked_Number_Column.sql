@@ -0,0 +1,2 @@
+ALTER TABLE card_data
+ADD COLUMN masked_number VARCHAR(19);
@@ -0,0 +1,11 @@
+-- Uma linha por sessão de login: a rotação só incrementa a geração, sem guardar cada refresh token emitido.
+CREATE TABLE refresh_token_family (
+    id CHAR(36) PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    generation INT NOT NULL DEFAULT 0,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    expires_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_refresh_token_family_expires (expires_at),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
@@ -0,0 +1,19 @@
+-- card_data.id passa de CHAR(36) para BINARY(16). Os ids novos são UUIDv7 (ordenados pelo tempo) e entram no fim
+-- do índice clusterizado; os existentes (UUIDv4) são convertidos sem reordenar bytes e ficam onde caírem.
+-- A conversão reescreve a tabela inteira: rodar em janela de manutenção em bases grandes.
+ALTER TABLE card_data ADD COLUMN id_bin BINARY(16) NULL;
+
+UPDATE card_data SET id_bin = UUID_TO_BIN(id);
+
+-- Troca da PK e do índice de listagem num único ALTER (atômico no MySQL 8): o índice pode ser o único que atende
+-- a FK de created_by, e um DROP INDEX isolado falha com 1553 deixando id e id_bin para trás.
+ALTER TABLE card_data
+    MODIFY COLUMN id_bin BINARY(16) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (id_bin),
+    DROP INDEX idx_card_data_user_created,
+    ADD INDEX idx_card_data_user_created (created_by, created_at, id_bin),
+    DROP COLUMN id;
+
+-- só metadado: o índice e a PK acompanham a coluna renomeada
+ALTER TABLE card_data RENAME COLUMN id_bin TO id;
@@ -0,0 +1,6 @@
+-- Cada job pertence ao nó que gravou o arquivo no spool local; só esse nó o retoma depois de reiniciar.
+-- Jobs abertos antes desta coluna ficam com node_id NULL e não são retomados por nenhum nó.
+ALTER TABLE upload_job
+ADD COLUMN node_id VARCHAR(255);
+
+CREATE INDEX idx_upload_job_node_status ON upload_job (node_id, status);
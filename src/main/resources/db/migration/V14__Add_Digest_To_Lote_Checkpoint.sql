@@ -0,0 +1,5 @@
+-- O checkpoint é chaveado por (lote, created_by); o digest confere que o reenvio é o mesmo arquivo antes de
+-- retomar ou devolver o resultado já gravado. Checkpoints anteriores a esta coluna ficam com NULL e o reenvio
+-- do mesmo lote é recusado.
+ALTER TABLE lote_checkpoint
+ADD COLUMN digest BINARY(32);
@@ -0,0 +1,3 @@
+-- Erros do lote passam a ser contados na ingestão: só detalhes recusados pelo layout, sem cabeçalho nem trailer.
+ALTER TABLE lote_checkpoint
+ADD COLUMN erros INT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- O token de busca passou a usar chave própria (encryption.lookup-key ou HKDF da secret-key), então os
+-- number_hash gravados com a chave antiga não batem mais. Zerados aqui, são recalculados pelo
+-- CardBackfillService ao subir a aplicação; até lá a unicidade continua garantida pela coluna number.
+UPDATE card_data SET number_hash = NULL;
@@ -0,0 +1,4 @@
+ALTER TABLE card_data
+ADD COLUMN number_hash BINARY(32) NULL;
+
+CREATE UNIQUE INDEX uk_card_data_number_hash ON card_data (number_hash);
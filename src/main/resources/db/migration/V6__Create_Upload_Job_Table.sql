@@ -0,0 +1,15 @@
+CREATE TABLE upload_job (
+    id CHAR(36) PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    file_path VARCHAR(500),
+    lote VARCHAR(255),
+    linhas_lidas INT NOT NULL DEFAULT 0,
+    cartoes_processados INT NOT NULL DEFAULT 0,
+    duplicados INT NOT NULL DEFAULT 0,
+    erros INT NOT NULL DEFAULT 0,
+    mensagem VARCHAR(1000),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_upload_job_status (status)
+);
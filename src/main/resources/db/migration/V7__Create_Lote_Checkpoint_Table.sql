@@ -0,0 +1,13 @@
+CREATE TABLE lote_checkpoint (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    lote VARCHAR(255) NOT NULL,
+    created_by BIGINT NOT NULL,
+    ultima_linha INT NOT NULL,
+    cartoes_processados INT NOT NULL DEFAULT 0,
+    duplicados INT NOT NULL DEFAULT 0,
+    avaliadas INT NOT NULL DEFAULT 0,
+    concluido BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_lote_checkpoint_lote_user (lote, created_by),
+    FOREIGN KEY (created_by) REFERENCES users(id)
+);
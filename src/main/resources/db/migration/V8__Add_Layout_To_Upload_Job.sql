@@ -0,0 +1,2 @@
+ALTER TABLE upload_job
+ADD COLUMN layout VARCHAR(50);
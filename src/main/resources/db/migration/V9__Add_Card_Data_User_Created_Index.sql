@@ -0,0 +1 @@
+CREATE INDEX idx_card_data_user_created ON card_data (created_by, created_at, id);
@@ -0,0 +1,180 @@
+package com.correia.augusto.card.api.config;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.repository.CardRepository;
+import com.correia.augusto.card.api.support.CardDataH2;
+import com.correia.augusto.card.api.util.UuidV7;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Dois H2 fazem o papel de primário e réplica; cada um responde com o próprio nome.
+class ReadReplicaConfigTest {
+
+    private static final UUID CARTAO = UuidV7.next();
+
+    private EmbeddedDatabase primario;
+    private EmbeddedDatabase replica;
+    private final AtomicReference<Object> atraso = new AtomicReference<>(Duration.ZERO);
+    private ReplicaLagMonitor monitor;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escrita;
+    private TransactionTemplate leitura;
+
+    @BeforeEach
+    void setUp() {
+        primario = banco("primario");
+        replica = banco("replica");
+        monitor = new ReplicaLagMonitor(() -> {
+            if (atraso.get() instanceof RuntimeException e) {
+                throw e;
+            }
+            return (Duration) atraso.get();
+        }, Duration.ofSeconds(2));
+        monitor.check();
+
+        dataSource = ReadReplicaConfig.routingDataSource(primario, replica, monitor);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        escrita = new TransactionTemplate(transactionManager);
+        leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.shutdown();
+        primario.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldUseReplica() {
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    @Test
+    void writeTransactionAndNonTransactionalAccess_ShouldUsePrimary() {
+        assertEquals("primario", escrita.execute(status -> origem()));
+        assertEquals("primario", origem());
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldFallBackToPrimaryWhileReplicaLags() {
+        atraso.set(Duration.ofSeconds(30));
+        monitor.check();
+
+        assertFalse(monitor.isReplicaUsable());
+        assertEquals("primario", leitura.execute(status -> origem()));
+
+        atraso.set(Duration.ofMillis(500));
+        monitor.check();
+
+        assertEquals("replica", leitura.execute(status -> origem()));
+    }
+
+    // Caminho real das buscas: repositório Spring Data com @Transactional(readOnly = true), Hibernate e
+    // JpaTransactionManager. O HibernateJpaDialect marca a conexão como somente-leitura antes do primeiro comando.
+    @Test
+    void readOnlyRepositoryMethod_ShouldUseReplicaThroughJpa() {
+        try (AnnotationConfigApplicationContext context = jpaContext()) {
+            CardRepository cardRepository = context.getBean(CardRepository.class);
+            TransactionTemplate escritaJpa = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+            assertEquals("replica", cardRepository.findViewById(CARTAO).orElseThrow().holderName());
+            // dentro de uma transação de escrita a busca acompanha a conexão dela, no primário
+            assertEquals("primario", escritaJpa.execute(status ->
+                    cardRepository.findViewById(CARTAO).orElseThrow().holderName()));
+
+            atraso.set(Duration.ofSeconds(30));
+            monitor.check();
+            assertEquals("primario", cardRepository.findViewById(CARTAO).orElseThrow().holderName());
+        }
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldFallBackToPrimaryWhenReplicationStopsOrProbeFails() {
+        atraso.set(null);
+        monitor.check();
+        assertEquals("primario", leitura.execute(status -> origem()));
+
+        atraso.set(new IllegalStateException("réplica fora do ar"));
+        monitor.check();
+        assertEquals("primario", leitura.execute(status -> origem()));
+    }
+
+    private AnnotationConfigApplicationContext jpaContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean("dataSource", DataSource.class, () -> dataSource);
+        context.register(JpaConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    @EnableJpaRepositories(basePackageClasses = CardRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = CardRepository.class))
+    static class JpaConfig {
+
+        @Bean
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+            LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+            entityManagerFactory.setDataSource(dataSource);
+            entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+            entityManagerFactory.setPackagesToScan(Card.class.getPackageName());
+            // mesma estratégia de nomes que o Spring Boot aplica (holderName -> holder_name)
+            entityManagerFactory.setJpaPropertyMap(Map.of(AvailableSettings.PHYSICAL_NAMING_STRATEGY,
+                    CamelCaseToUnderscoresNamingStrategy.class.getName()));
+            return entityManagerFactory;
+        }
+
+        @Bean
+        JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+            return new JpaTransactionManager(entityManagerFactory);
+        }
+    }
+
+    private String origem() {
+        return jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class);
+    }
+
+    private static EmbeddedDatabase banco(String nome) {
+        EmbeddedDatabase banco = CardDataH2.create(nome);
+        new JdbcTemplate(banco).execute("CREATE TABLE origem (nome VARCHAR(20))");
+        new JdbcTemplate(banco).update("INSERT INTO origem VALUES (?)", nome);
+        // o mesmo cartão nos dois bancos, com o nome de cada um no titular
+        new JdbcTemplate(banco).update("""
+                INSERT INTO card_data (id, number, holder_name, expiration_date, cvv, type, created_by, created_at)
+                VALUES (?, 'cifrado', ?, DATE '2099-12-31', '000', 'CREDIT', 1, CURRENT_TIMESTAMP)
+                """, UuidV7.toBytes(CARTAO), nome);
+        return banco;
+    }
+}
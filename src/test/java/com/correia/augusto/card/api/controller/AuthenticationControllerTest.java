@@ -2,6 +2,7 @@ package com.correia.augusto.card.api.controller;
 
 import com.correia.augusto.card.api.dto.AuthenticationRequest;
 import com.correia.augusto.card.api.dto.AuthenticationResponse;
+import com.correia.augusto.card.api.dto.RefreshTokenRequest;
 import com.correia.augusto.card.api.dto.RegisterRequest;
 import com.correia.augusto.card.api.security.AuthenticationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -43,7 +44,7 @@ class AuthenticationControllerTest {
 
         registerRequest = new RegisterRequest("userTest", "password123");
         authenticationRequest = new AuthenticationRequest("userTest", "password123");
-        authenticationResponse = new AuthenticationResponse("mocked-token");
+        authenticationResponse = new AuthenticationResponse("mocked-token", "mocked-refresh-token");
     }
 
     @Test
@@ -69,4 +70,16 @@ class AuthenticationControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().json(objectMapper.writeValueAsString(authenticationResponse)));
     }
+
+    @Test
+    void testRefresh_Success() throws Exception {
+        Mockito.when(authenticationService.refresh(any(RefreshTokenRequest.class)))
+                .thenReturn(authenticationResponse);
+
+        mockMvc.perform(post("/api/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new RefreshTokenRequest("mocked-refresh-token"))))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(authenticationResponse)));
+    }
 }
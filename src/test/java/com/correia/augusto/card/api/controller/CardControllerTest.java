@@ -1,10 +1,14 @@
 package com.correia.augusto.card.api.controller;
 
+import com.correia.augusto.card.api.dto.CardPage;
 import com.correia.augusto.card.api.dto.CardRequest;
 import com.correia.augusto.card.api.dto.CardResponse;
 import com.correia.augusto.card.api.dto.ProcessamentoResult;
+import com.correia.augusto.card.api.dto.UploadJobResponse;
 import com.correia.augusto.card.api.enums.CardType;
+import com.correia.augusto.card.api.enums.UploadJobStatus;
 import com.correia.augusto.card.api.service.CardService;
+import com.correia.augusto.card.api.service.UploadJobService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,7 +20,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Collections;
@@ -37,6 +43,9 @@ import static org.junit.jupiter.api.Assertions.*;
     @Mock
     private CardService cardService;
 
+    @Mock
+    private UploadJobService uploadJobService;
+
     @Mock
     private UserDetails userDetails;
 
@@ -64,14 +73,16 @@ import static org.junit.jupiter.api.Assertions.*;
 
     @Test
      void testGetCardsByUser() {
-        when(cardService.getCardsByUserId(1L)).thenReturn(Collections.singletonList(cardResponse));
+        when(cardService.getCardsByUserId(1L, null, null))
+                .thenReturn(new CardPage(Collections.singletonList(cardResponse), "next"));
 
-        ResponseEntity<List<CardResponse>> response = cardController.getCardsByUser(1L);
+        ResponseEntity<CardPage> response = cardController.getCardsByUser(1L, null, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertFalse(response.getBody().isEmpty());
-        assertEquals("cardId", response.getBody().get(0).id());
+        assertFalse(response.getBody().cards().isEmpty());
+        assertEquals("cardId", response.getBody().cards().get(0).id());
+        assertEquals("next", response.getBody().nextCursor());
     }
 
     @Test
@@ -87,16 +98,16 @@ import static org.junit.jupiter.api.Assertions.*;
 
     @Test
      void testUploadArquivoCartoes() throws IOException {
-        byte[] fileBytes = "test file".getBytes();
-        when(file.getBytes()).thenReturn(fileBytes);
+        InputStream fileStream = new ByteArrayInputStream("test file".getBytes());
+        when(file.getInputStream()).thenReturn(fileStream);
         when(userDetails.getUsername()).thenReturn("user123");
 
         ProcessamentoResult processamentoResult = new ProcessamentoResult(5, 10, "batch1"); // Exemplo de resultado
-        when(cardService.processCardFile(fileBytes, "user123")).thenReturn(processamentoResult);
+        when(cardService.processCardFile(fileStream, "user123", null)).thenReturn(processamentoResult);
 
-        ResponseEntity<ProcessamentoResult> response = cardController.uploadArquivoCartoes(file, userDetails);
+        ResponseEntity<ProcessamentoResult> response = cardController.uploadArquivoCartoes(file, null, userDetails);
 
-        verify(cardService).processCardFile(fileBytes, "user123");
+        verify(cardService).processCardFile(fileStream, "user123", null);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(5, response.getBody().cartoesProcessados());
@@ -108,11 +119,37 @@ import static org.junit.jupiter.api.Assertions.*;
      void testUploadArquivoCartoes_FileEmpty() throws IOException {
         when(file.isEmpty()).thenReturn(true);
 
-        ResponseEntity<ProcessamentoResult> response = cardController.uploadArquivoCartoes(file, userDetails);
+        ResponseEntity<ProcessamentoResult> response = cardController.uploadArquivoCartoes(file, null, userDetails);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
+    @Test
+     void testUploadArquivoCartoesAsync() throws IOException {
+        UploadJobResponse job = new UploadJobResponse("job-1", UploadJobStatus.QUEUED, null, 0, 0, 0, 0,
+                null, null, Instant.now(), Instant.now());
+        when(userDetails.getUsername()).thenReturn("user123");
+        when(uploadJobService.submit(file, "user123", null)).thenReturn(job);
+
+        ResponseEntity<UploadJobResponse> response = cardController.uploadArquivoCartoesAsync(file, null, userDetails);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("job-1", response.getBody().jobId());
+    }
+
+    @Test
+     void testGetUploadJob() {
+        UploadJobResponse job = new UploadJobResponse("job-1", UploadJobStatus.COMPLETED, "LOTE0001", 12, 8, 2, 0,
+                new ProcessamentoResult(8, 12, "LOTE0001"), null, Instant.now(), Instant.now());
+        when(userDetails.getUsername()).thenReturn("user123");
+        when(uploadJobService.getJob("job-1", "user123")).thenReturn(job);
+
+        ResponseEntity<UploadJobResponse> response = cardController.getUploadJob("job-1", userDetails);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(8, response.getBody().resultado().cartoesProcessados());
+    }
+
     @Test
      void testRegisterCard_UserServiceThrowsException() {
         when(userDetails.getUsername()).thenReturn("user123");
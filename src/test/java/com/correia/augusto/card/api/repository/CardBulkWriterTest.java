@@ -0,0 +1,78 @@
+package com.correia.augusto.card.api.repository;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.enums.BulkLoadStrategy;
+import com.correia.augusto.card.api.support.CardDataH2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static com.correia.augusto.card.api.support.CardDataH2.card;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class CardBulkWriterTest {
+
+    private EmbeddedDatabase dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private CardBulkWriter cardBulkWriter;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = CardDataH2.create("cards");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        cardBulkWriter = new CardBulkWriter(jdbcTemplate, new NamedParameterJdbcTemplate(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void insertIfAbsent_ShouldTranslateUniqueKeyViolation() {
+        assertTrue(cardBulkWriter.insertIfAbsent(card(1)));
+        assertFalse(cardBulkWriter.insertIfAbsent(card(1)));
+        assertTrue(cardBulkWriter.insertIfAbsent(card(2)));
+
+        assertEquals(2, count());
+    }
+
+    @Test
+    void insert_ShouldSkipDuplicatesWithoutFailingTheBatch() {
+        cardBulkWriter.insertIfAbsent(card(3));
+
+        // 3 já está no banco e 4 aparece duas vezes no mesmo batch
+        List<Card> batch = List.of(card(3), card(4), card(4), card(5));
+        int inseridos = cardBulkWriter.insert(batch);
+
+        assertEquals(2, inseridos);
+        assertEquals(3, count());
+        assertEquals(2, cardBulkWriter.findPersistedIds(batch.stream().map(Card::getId).toList()).size());
+    }
+
+    @Test
+    void insertBatch_ShouldUseJdbcBatchEvenWithLoadDataStrategy() {
+        JdbcTemplate spiedTemplate = spy(jdbcTemplate);
+        CardBulkWriter writer = new CardBulkWriter(spiedTemplate, new NamedParameterJdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(writer, "strategy", BulkLoadStrategy.LOAD_DATA);
+
+        assertEquals(2, writer.insertBatch(List.of(card(6), card(7))));
+        verify(spiedTemplate, never()).update(startsWith("LOAD DATA"));
+
+        // a carga de arquivo continua tentando LOAD DATA (o H2 não tem, e cai no JDBC batch)
+        assertEquals(1, writer.insert(List.of(card(8))));
+        verify(spiedTemplate).update(startsWith("LOAD DATA"));
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM card_data", Integer.class);
+    }
+}
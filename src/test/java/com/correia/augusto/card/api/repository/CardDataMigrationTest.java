@@ -0,0 +1,65 @@
+package com.correia.augusto.card.api.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// As migrações rodam contra um MySQL de verdade: DDL no MySQL não é transacional e erros como o 1553
+// (índice exigido por FK) só aparecem lá. Sem Docker o teste é pulado.
+@Testcontainers(disabledWithoutDocker = true)
+class CardDataMigrationTest {
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @Test
+    void v12_ShouldConvertIdToBinaryKeepingRowsAndListingIndex() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        flyway(dataSource, "11").migrate();
+        jdbcTemplate.update("INSERT INTO users (username, password) VALUES ('migracao', 'x')");
+        String id = UUID.randomUUID().toString();
+        jdbcTemplate.update("""
+                INSERT INTO card_data (id, number, holder_name, expiration_date, cvv, type, created_by)
+                VALUES (?, 'cifrado', 'Teste', '2099-12-31', '000', 'CREDIT', (SELECT id FROM users))
+                """, id);
+
+        flyway(dataSource, "latest").migrate();
+
+        assertEquals("binary(16)", jdbcTemplate.queryForObject("""
+                SELECT COLUMN_TYPE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'card_data' AND COLUMN_NAME = 'id'
+                """, String.class));
+        assertEquals(id, jdbcTemplate.queryForObject("SELECT BIN_TO_UUID(id) FROM card_data", String.class));
+        assertEquals(List.of("created_by", "created_at", "id"), indexColumns(jdbcTemplate, "idx_card_data_user_created"));
+        assertEquals(List.of("id"), indexColumns(jdbcTemplate, "PRIMARY"));
+        assertEquals(1, jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.KEY_COLUMN_USAGE
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'card_data' AND COLUMN_NAME = 'created_by'
+                  AND REFERENCED_TABLE_NAME = 'users'
+                """, Integer.class));
+    }
+
+    private static Flyway flyway(DriverManagerDataSource dataSource, String target) {
+        return Flyway.configure().dataSource(dataSource).target(target).load();
+    }
+
+    private static List<String> indexColumns(JdbcTemplate jdbcTemplate, String index) {
+        return jdbcTemplate.queryForList("""
+                SELECT COLUMN_NAME FROM information_schema.STATISTICS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'card_data' AND INDEX_NAME = ?
+                ORDER BY SEQ_IN_INDEX
+                """, String.class, index);
+    }
+}
@@ -2,24 +2,42 @@ package com.correia.augusto.card.api.security;
 
 import com.correia.augusto.card.api.dto.AuthenticationRequest;
 import com.correia.augusto.card.api.dto.AuthenticationResponse;
+import com.correia.augusto.card.api.dto.RefreshTokenRequest;
 import com.correia.augusto.card.api.dto.RegisterRequest;
+import com.correia.augusto.card.api.entities.RefreshTokenFamily;
 import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.enums.Role;
+import com.correia.augusto.card.api.exception.AuthenticationFailedException;
 import com.correia.augusto.card.api.exception.DuplicateDataException;
+import com.correia.augusto.card.api.repository.RefreshTokenFamilyRepository;
 import com.correia.augusto.card.api.repository.UserRepository;
+import com.correia.augusto.card.api.service.UserDetailsServiceImpl;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -40,10 +58,20 @@ class AuthenticationServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
+    @Mock
+    private RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     private final String username = "testUser";
     private final String encodedPassword = "encodedPassword";
     private final String password = "password123";
     private final String jwtToken = "jwtToken";
+    private final String refreshToken = "refreshToken";
 
     @Test
     void testRegister_Success() {
@@ -52,22 +80,44 @@ class AuthenticationServiceTest {
         when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
         when(jwtService.generateToken(any(User.class))).thenReturn(jwtToken);
         when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
+        stubRefreshTokenIssue();
 
         AuthenticationResponse response = authenticationService.register(request);
 
         assertNotNull(response);
         assertEquals(jwtToken, response.getToken());
+        assertEquals(refreshToken, response.getRefreshToken());
         verify(userRepository, times(1)).save(any(User.class));
+        verify(userIdentityCache).invalidate(username);
     }
 
     @Test
-    void testRegister_DuplicateUser() {
+    void testRegister_HashesBeforeOpeningTransaction() {
         RegisterRequest request = new RegisterRequest(username, password);
+        PlatformTransactionManager transactionManager = transactionTemplate.getTransactionManager();
 
+        when(userRepository.findByUsername(username)).thenReturn(Optional.empty());
         when(passwordEncoder.encode(password)).thenReturn(encodedPassword);
+        stubRefreshTokenIssue();
+
+        authenticationService.register(request);
+
+        InOrder inOrder = inOrder(passwordEncoder, transactionManager, userRepository);
+        inOrder.verify(passwordEncoder).encode(password);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).findByUsername(username);
+        inOrder.verify(userRepository).save(argThat(user -> encodedPassword.equals(user.getPassword())));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testRegister_DuplicateUser() {
+        RegisterRequest request = new RegisterRequest(username, password);
+
         when(userRepository.findByUsername(username)).thenReturn(Optional.of(new User()));
 
         assertThrows(DuplicateDataException.class, () -> authenticationService.register(request));
+        verify(passwordEncoder, never()).encode(anyString());
     }
 
     @Test
@@ -75,15 +125,43 @@ class AuthenticationServiceTest {
         AuthenticationRequest request = new AuthenticationRequest(username, password);
         User user = new User();
 
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(new UsernamePasswordAuthenticationToken(user, null, List.of()));
         when(jwtService.generateToken(user)).thenReturn(jwtToken);
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        stubRefreshTokenIssue();
 
         AuthenticationResponse response = authenticationService.authenticate(request);
 
         assertNotNull(response);
         assertEquals(jwtToken, response.getToken());
+        assertEquals(refreshToken, response.getRefreshToken());
+        verifyNoInteractions(userRepository);
+        ArgumentCaptor<RefreshTokenFamily> family = ArgumentCaptor.forClass(RefreshTokenFamily.class);
+        verify(refreshTokenFamilyRepository).save(family.capture());
+        assertEquals(0, family.getValue().getGeneration());
+        assertSame(user, family.getValue().getUser());
         verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        assertEquals(user, userRepository.findByUsername(username).orElse(null));
+    }
+
+    @Test
+    void testAuthenticate_LoadsUserOnce() {
+        User user = User.builder().id(1L).username(username).password(encodedPassword).role(Role.USER).build();
+        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(password, encodedPassword)).thenReturn(true);
+        stubRefreshTokenIssue();
+
+        // cadeia real do login: ProviderManager -> CustomAuthenticationProvider -> UserDetailsServiceImpl
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(userRepository, userIdentityCache);
+        AuthenticationService service = new AuthenticationService(userRepository, passwordEncoder, jwtService,
+                new ProviderManager(new CustomAuthenticationProvider(userDetailsService, passwordEncoder)),
+                userIdentityCache, refreshTokenFamilyRepository, transactionTemplate);
+
+        service.authenticate(new AuthenticationRequest(username, password));
+
+        verify(userRepository, times(1)).findByUsername(username);
+        verifyNoMoreInteractions(userRepository);
+        verify(refreshTokenFamilyRepository, times(1)).save(any(RefreshTokenFamily.class));
+        verify(jwtService).generateToken(user);
     }
 
     @Test
@@ -95,4 +173,104 @@ class AuthenticationServiceTest {
 
         assertThrows(BadCredentialsException.class, () -> authenticationService.authenticate(request));
     }
+
+    @Test
+    void testRefresh_RotatesFamily() {
+        RefreshTokenFamily family = family(3, false);
+        when(jwtService.validate(refreshToken)).thenReturn(refreshClaims("family-1", 3));
+        when(refreshTokenFamilyRepository.findByIdForUpdate("family-1")).thenReturn(Optional.of(family));
+        when(userIdentityCache.find(username)).thenReturn(Optional.of(new UserIdentity(1L, username, Role.USER)));
+        when(jwtService.refreshTokenTtl()).thenReturn(Duration.ofDays(7));
+        when(jwtService.generateToken(any(User.class))).thenReturn(jwtToken);
+        when(jwtService.generateRefreshToken(any(User.class), eq("family-1"), eq(4))).thenReturn("newRefreshToken");
+
+        AuthenticationResponse response = authenticationService.refresh(new RefreshTokenRequest(refreshToken));
+
+        assertEquals(jwtToken, response.getToken());
+        assertEquals("newRefreshToken", response.getRefreshToken());
+        assertEquals(4, family.getGeneration());
+        assertFalse(family.isRevoked());
+        verifyNoInteractions(authenticationManager, passwordEncoder);
+    }
+
+    @Test
+    void testRefresh_ReusedTokenRevokesFamily() {
+        RefreshTokenFamily family = family(4, false);
+        when(jwtService.validate(refreshToken)).thenReturn(refreshClaims("family-1", 3));
+        when(refreshTokenFamilyRepository.findByIdForUpdate("family-1")).thenReturn(Optional.of(family));
+
+        assertThrows(AuthenticationFailedException.class,
+                () -> authenticationService.refresh(new RefreshTokenRequest(refreshToken)));
+
+        assertTrue(family.isRevoked());
+        // revogada vence na hora, para a limpeza por expires_at levar a linha
+        assertFalse(family.getExpiresAt().isAfter(Instant.now()));
+        verify(jwtService, never()).generateToken(any());
+    }
+
+    @Test
+    void testRefresh_ExpiredFamily() {
+        RefreshTokenFamily family = family(4, false);
+        family.setExpiresAt(Instant.now().minusSeconds(1));
+        when(jwtService.validate(refreshToken)).thenReturn(refreshClaims("family-1", 4));
+        when(refreshTokenFamilyRepository.findByIdForUpdate("family-1")).thenReturn(Optional.of(family));
+
+        assertThrows(AuthenticationFailedException.class,
+                () -> authenticationService.refresh(new RefreshTokenRequest(refreshToken)));
+        assertEquals(4, family.getGeneration());
+        verify(jwtService, never()).generateToken(any());
+    }
+
+    @Test
+    void testRefresh_RevokedFamily() {
+        when(jwtService.validate(refreshToken)).thenReturn(refreshClaims("family-1", 4));
+        when(refreshTokenFamilyRepository.findByIdForUpdate("family-1")).thenReturn(Optional.of(family(4, true)));
+
+        assertThrows(AuthenticationFailedException.class,
+                () -> authenticationService.refresh(new RefreshTokenRequest(refreshToken)));
+    }
+
+    @Test
+    void testRefresh_AccessTokenIsRejected() {
+        when(jwtService.validate(jwtToken)).thenReturn(
+                new VerifiedToken(username, Instant.now().plusSeconds(60), Jwts.claims().subject(username).build()));
+
+        assertThrows(AuthenticationFailedException.class,
+                () -> authenticationService.refresh(new RefreshTokenRequest(jwtToken)));
+        verifyNoInteractions(refreshTokenFamilyRepository);
+    }
+
+    @Test
+    void testRefresh_InvalidSignature() {
+        when(jwtService.validate(refreshToken)).thenThrow(new MalformedJwtException("invalid"));
+
+        assertThrows(AuthenticationFailedException.class,
+                () -> authenticationService.refresh(new RefreshTokenRequest(refreshToken)));
+    }
+
+    private void stubRefreshTokenIssue() {
+        when(jwtService.refreshTokenTtl()).thenReturn(Duration.ofDays(7));
+        when(refreshTokenFamilyRepository.save(any(RefreshTokenFamily.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jwtService.generateRefreshToken(any(User.class), anyString(), eq(0))).thenReturn(refreshToken);
+    }
+
+    private RefreshTokenFamily family(int generation, boolean revoked) {
+        return RefreshTokenFamily.builder()
+                .id("family-1")
+                .user(User.builder().id(1L).username(username).role(Role.USER).build())
+                .generation(generation)
+                .revoked(revoked)
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+    }
+
+    private VerifiedToken refreshClaims(String familyId, int generation) {
+        Claims claims = Jwts.claims()
+                .subject(username)
+                .add(JwtService.CLAIM_TYPE, JwtService.TYPE_REFRESH)
+                .add(JwtService.CLAIM_FAMILY, familyId)
+                .add(JwtService.CLAIM_GENERATION, generation)
+                .build();
+        return new VerifiedToken(username, Instant.now().plusSeconds(3600), claims);
+    }
 }
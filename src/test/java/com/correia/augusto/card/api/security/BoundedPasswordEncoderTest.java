@@ -0,0 +1,94 @@
+package com.correia.augusto.card.api.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final CountDownLatch iniciado = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        liberar.countDown();
+        encoder.shutdown();
+    }
+
+    @Test
+    void encodeAndMatches_ShouldDelegateAndRecordLatency() {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(false), 2, 4, meterRegistry);
+
+        assertEquals("hash:senha", encoder.encode("senha"));
+        assertTrue(encoder.matches("senha", "hash:senha"));
+        assertFalse(encoder.matches("outra", "hash:senha"));
+
+        assertEquals(1, meterRegistry.get("password_hash.duration").tag("operation", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("password_hash.duration").tag("operation", "matches").timer().count());
+    }
+
+    @Test
+    void encode_ShouldRejectWhenQueueIsFull() throws Exception {
+        encoder = new BoundedPasswordEncoder(new PlainEncoder(true), 1, 1, meterRegistry);
+
+        // uma chamada ocupa a única thread, outra fica na fila
+        CompletableFuture<String> ocupando = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertTrue(iniciado.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> naFila = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        awaitQueueSize(1);
+
+        assertThrows(RejectedExecutionException.class, () -> encoder.encode("c"));
+        assertEquals(1.0, meterRegistry.get("password_hash.rejected").counter().count());
+
+        liberar.countDown();
+        assertEquals("hash:a", ocupando.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:b", naFila.get(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitQueueSize(int esperado) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("password_hash.queue.size").gauge().value() < esperado) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("fila de hash não chegou a " + esperado);
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private class PlainEncoder implements PasswordEncoder {
+
+        private final boolean bloquear;
+
+        private PlainEncoder(boolean bloquear) {
+            this.bloquear = bloquear;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (bloquear) {
+                iniciado.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encodedPassword.equals("hash:" + rawPassword);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.Collections;
@@ -50,6 +51,7 @@ class CustomAuthenticationProviderTest {
 
         assertNotNull(result);
         assertEquals(username, result.getName());
+        assertSame(userDetails, result.getPrincipal());
         assertTrue(result.getAuthorities().isEmpty());
     }
 
@@ -66,6 +68,16 @@ class CustomAuthenticationProviderTest {
         assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(authentication));
     }
 
+    @Test
+    void testAuthenticate_UnknownUser() {
+        when(userDetailsService.loadUserByUsername(username)).thenThrow(new UsernameNotFoundException("User not found"));
+
+        Authentication authentication = new UsernamePasswordAuthenticationToken(username, password);
+
+        assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(authentication));
+        verifyNoInteractions(passwordEncoder);
+    }
+
     @Test
     void testSupports_ValidAuthenticationClass() {
         assertTrue(authenticationProvider.supports(UsernamePasswordAuthenticationToken.class));
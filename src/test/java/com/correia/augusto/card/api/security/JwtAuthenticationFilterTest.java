@@ -1,5 +1,10 @@
 package com.correia.augusto.card.api.security;
 
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.enums.Role;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,30 +12,31 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 
+import javax.crypto.SecretKey;
 import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class JwtAuthenticationFilterTest {
 
-    @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
-    @Mock
     private JwtService jwtService;
 
     @Mock
-    private UserDetailsService userDetailsService;
+    private UserIdentityCache userIdentityCache;
 
     @Mock
     private HttpServletRequest request;
@@ -41,56 +47,103 @@ class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    private final String jwtToken = "valid.jwt.token";
     private final String username = "testUser";
+    private final UserIdentity identity = new UserIdentity(1L, username, Role.USER);
 
     @BeforeEach
     void setUp() {
         SecurityContextHolder.clearContext();
+
+        SecretKey key = Keys.hmacShaKeyFor(new SecureRandom().generateSeed(32));
+        jwtService = new JwtService(Base64.getEncoder().encodeToString(key.getEncoded()), 1000L * 60 * 60, 1000L * 60 * 60 * 24, tokenCache());
+
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtService, userIdentityCache, false);
     }
 
     @Test
-    void testDoFilterInternal_ValidToken() throws ServletException, IOException {
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwtToken);
-        when(jwtService.extractUsername(jwtToken)).thenReturn(username);
+    void testDoFilterInternal_ValidTokenBuildsPrincipalFromClaims() throws ServletException, IOException {
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwtService.generateToken(identity.toUser()));
 
-        UserDetails userDetails = new User(username, "password", Collections.emptyList());
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(1L, principal.getId());
+        assertEquals(username, principal.getUsername());
+        assertEquals(Role.USER, principal.getRole());
+        verifyNoInteractions(userIdentityCache);
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    @Test
+    void testDoFilterInternal_TokenWithoutIdentityClaimsFallsBackToCache() throws ServletException, IOException {
+        String token = jwtService.generateToken(
+                new org.springframework.security.core.userdetails.User(username, "password", Collections.emptyList()));
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + token);
+        when(userIdentityCache.find(username)).thenReturn(Optional.of(identity));
+
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        User principal = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(1L, principal.getId());
+        verify(userIdentityCache, times(1)).find(username);
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
 
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(jwtToken, userDetails)).thenReturn(true);
+    @Test
+    void testDoFilterInternal_VerifyUserRejectsDeletedUser() throws ServletException, IOException {
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtService, userIdentityCache, true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwtService.generateToken(identity.toUser()));
+        when(userIdentityCache.find(username)).thenReturn(Optional.empty());
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        verify(jwtService, times(1)).extractUsername(jwtToken);
-        verify(userDetailsService, times(1)).loadUserByUsername(username);
-        verify(jwtService, times(1)).isTokenValid(jwtToken, userDetails);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
     @Test
-    void testDoFilterInternal_InvalidToken() throws ServletException, IOException {
-        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwtToken);
-        when(jwtService.extractUsername(jwtToken)).thenReturn(username);
+    void testDoFilterInternal_VerifyUserRejectsRecreatedUser() throws ServletException, IOException {
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtService, userIdentityCache, true);
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + jwtService.generateToken(identity.toUser()));
+        when(userIdentityCache.find(username)).thenReturn(Optional.of(new UserIdentity(2L, username, Role.USER)));
 
-        UserDetails userDetails = new User(username, "password", Collections.emptyList());
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(jwtToken, userDetails)).thenReturn(false);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void testDoFilterInternal_RefreshTokenIsNotAnAccessCredential() throws ServletException, IOException {
+        when(request.getHeader("Authorization"))
+                .thenReturn("Bearer " + jwtService.generateRefreshToken(identity.toUser(), "family-1", 0));
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        verify(jwtService, times(1)).extractUsername(jwtToken);
-        verify(jwtService, times(1)).isTokenValid(jwtToken, userDetails);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
+    @Test
+    void testDoFilterInternal_InvalidToken() {
+        when(request.getHeader("Authorization")).thenReturn("Bearer invalid.jwt.token");
+
+        assertThrows(JwtException.class, () -> jwtAuthenticationFilter.doFilterInternal(request, response, filterChain));
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        verifyNoInteractions(userIdentityCache);
+    }
+
     @Test
     void testDoFilterInternal_NoAuthorizationHeader() throws ServletException, IOException {
         when(request.getHeader("Authorization")).thenReturn(null);
 
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(userIdentityCache, never()).find(anyString());
         verify(filterChain, times(1)).doFilter(request, response);
     }
+
+    private static VerifiedTokenCache tokenCache() {
+        return new VerifiedTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
 }
@@ -1,46 +1,38 @@
 package com.correia.augusto.card.api.security;
 
+import com.correia.augusto.card.api.enums.Role;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.crypto.SecretKey;
 import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@ExtendWith(MockitoExtension.class)
 class JwtServiceTest {
 
-    @InjectMocks
+    private String secretKey;
     private JwtService jwtService;
 
-    @Mock
-    private UserDetails userDetails;
-
     @BeforeEach
     void setUp() {
 
         SecretKey key = Keys.hmacShaKeyFor(new SecureRandom().generateSeed(32));
-        String secretKey = Base64.getEncoder().encodeToString(key.getEncoded());
-
-        ReflectionTestUtils.setField(jwtService, "secretKey", secretKey);
+        secretKey = Base64.getEncoder().encodeToString(key.getEncoded());
 
         long jwtExpiration = 1000 * 60 * 60;
-        ReflectionTestUtils.setField(jwtService, "jwtExpiration", jwtExpiration);
-
         long refreshExpiration = 1000 * 60 * 60 * 24;
-        ReflectionTestUtils.setField(jwtService, "refreshExpiration", refreshExpiration);
+        jwtService = new JwtService(secretKey, jwtExpiration, refreshExpiration, tokenCache());
     }
 
     @Test
@@ -68,7 +60,7 @@ class JwtServiceTest {
     @Test
     void testIsTokenExpired() throws InterruptedException {
         UserDetails user = new User("expiredUser", "password", Collections.emptyList());
-        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 1L);
+        jwtService = new JwtService(secretKey, 1L, 1000 * 60 * 60 * 24, tokenCache());
 
         String token = jwtService.generateToken(user);
 
@@ -76,4 +68,62 @@ class JwtServiceTest {
 
         assertThrows(ExpiredJwtException.class,()->jwtService.isTokenValid(token, user));
     }
+
+    @Test
+    void testGenerateTokenEmbedsUserIdAndRole() {
+        com.correia.augusto.card.api.entities.User user = com.correia.augusto.card.api.entities.User.builder()
+                .id(42L)
+                .username("claimsUser")
+                .role(Role.ADMIN)
+                .build();
+
+        String token = jwtService.generateToken(user);
+
+        assertEquals(new UserIdentity(42L, "claimsUser", Role.ADMIN), jwtService.validate(token).identity());
+    }
+
+    @Test
+    void testExtractIdentityReturnsNullWithoutIdentityClaims() {
+        UserDetails user = new User("legacyUser", "password", Collections.emptyList());
+
+        String token = jwtService.generateToken(user);
+
+        assertNull(jwtService.validate(token).identity());
+    }
+
+    @Test
+    void testValidateReturnsSubjectAndExpiry() {
+        UserDetails user = new User("validUser", "password", Collections.emptyList());
+
+        VerifiedToken token = jwtService.validate(jwtService.generateToken(user));
+
+        assertEquals("validUser", token.subject());
+        assertTrue(token.expiresAt().isAfter(Instant.now()));
+        assertEquals("validUser", token.claims().getSubject());
+    }
+
+    @Test
+    void testValidateRejectsTokenSignedWithAnotherKey() {
+        UserDetails user = new User("validUser", "password", Collections.emptyList());
+        String otherKey = Base64.getEncoder().encodeToString(Keys.hmacShaKeyFor(new SecureRandom().generateSeed(32)).getEncoded());
+        String token = new JwtService(otherKey, 1000 * 60, 1000 * 60, tokenCache()).generateToken(user);
+
+        assertThrows(SignatureException.class, () -> jwtService.validate(token));
+    }
+
+    @Test
+    void testGenerateRefreshTokenCarriesFamilyAndGeneration() {
+        UserDetails user = new User("refreshUser", "password", Collections.emptyList());
+
+        VerifiedToken token = jwtService.validate(jwtService.generateRefreshToken(user, "family-1", 2));
+
+        assertTrue(token.isRefresh());
+        assertEquals("family-1", token.familyId());
+        assertEquals(2, token.generation());
+        assertFalse(jwtService.validate(jwtService.generateToken(user)).isRefresh());
+    }
+
+    private static VerifiedTokenCache tokenCache() {
+        return new VerifiedTokenCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
 }
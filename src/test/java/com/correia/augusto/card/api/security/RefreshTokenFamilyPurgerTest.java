@@ -0,0 +1,53 @@
+package com.correia.augusto.card.api.security;
+
+import com.correia.augusto.card.api.repository.RefreshTokenFamilyRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenFamilyPurgerTest {
+
+    private RefreshTokenFamilyRepository refreshTokenFamilyRepository;
+    private RefreshTokenFamilyPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenFamilyRepository = mock(RefreshTokenFamilyRepository.class);
+        purger = new RefreshTokenFamilyPurger(refreshTokenFamilyRepository, Duration.ofHours(1), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        purger.shutdown();
+    }
+
+    @Test
+    void purge_ShouldDeleteInBatchesUntilLastPartialBatch() {
+        when(refreshTokenFamilyRepository.deleteExpired(any(Instant.class), eq(100))).thenReturn(100, 100, 42);
+
+        assertEquals(242, purger.purge());
+
+        verify(refreshTokenFamilyRepository, times(3)).deleteExpired(any(Instant.class), eq(100));
+    }
+
+    @Test
+    void purge_ShouldUseSameCutoffForEveryBatch() {
+        when(refreshTokenFamilyRepository.deleteExpired(any(Instant.class), eq(100))).thenReturn(100, 0);
+        ArgumentCaptor<Instant> cortes = ArgumentCaptor.forClass(Instant.class);
+        Instant antes = Instant.now();
+
+        purger.purge();
+
+        verify(refreshTokenFamilyRepository, times(2)).deleteExpired(cortes.capture(), eq(100));
+        assertEquals(cortes.getAllValues().get(0), cortes.getAllValues().get(1));
+        assertFalse(cortes.getValue().isBefore(antes));
+    }
+}
@@ -0,0 +1,86 @@
+package com.correia.augusto.card.api.security;
+
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.enums.Role;
+import com.correia.augusto.card.api.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserIdentityCacheTest {
+
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private UserIdentityCache userIdentityCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        userIdentityCache = new UserIdentityCache(userRepository, meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void find_ShouldHitDatabaseOnlyOnFirstLookup() {
+        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(getUser()));
+
+        UserIdentity first = userIdentityCache.find("testUser").orElseThrow();
+        UserIdentity second = userIdentityCache.find("testUser").orElseThrow();
+
+        assertEquals(new UserIdentity(1L, "testUser", Role.USER), first);
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByUsername("testUser");
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "user_identity").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "user_identity").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void find_ShouldNotCacheUnknownUser() {
+        when(userRepository.findByUsername("novo")).thenReturn(Optional.empty());
+
+        assertTrue(userIdentityCache.find("novo").isEmpty());
+        assertTrue(userIdentityCache.find("novo").isEmpty());
+
+        verify(userRepository, times(2)).findByUsername("novo");
+    }
+
+    @Test
+    void invalidate_ShouldReloadOnNextLookup() {
+        User user = getUser();
+        userIdentityCache.put(user);
+        user.setRole(Role.ADMIN);
+        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
+
+        assertEquals(Role.USER, userIdentityCache.find("testUser").orElseThrow().role());
+        userIdentityCache.invalidate("testUser");
+
+        assertEquals(Role.ADMIN, userIdentityCache.find("testUser").orElseThrow().role());
+        verify(userRepository, times(1)).findByUsername("testUser");
+    }
+
+    @Test
+    void find_ShouldExpireEntriesAfterTtl() throws InterruptedException {
+        userIdentityCache = new UserIdentityCache(userRepository, meterRegistry, 100, Duration.ofMillis(20));
+        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(getUser()));
+
+        userIdentityCache.find("testUser");
+        Thread.sleep(50);
+        userIdentityCache.find("testUser");
+
+        verify(userRepository, times(2)).findByUsername("testUser");
+    }
+
+    private static User getUser() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testUser");
+        user.setRole(Role.USER);
+        return user;
+    }
+}
@@ -0,0 +1,93 @@
+package com.correia.augusto.card.api.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache verifiedTokenCache;
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache(meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void get_ShouldVerifyTokenOnlyOnce() {
+        Function<String, VerifiedToken> verifier = verifier(Instant.now().plusSeconds(60));
+
+        VerifiedToken first = verifiedTokenCache.get("a.b.c", verifier);
+        VerifiedToken second = verifiedTokenCache.get("a.b.c", verifier);
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "verified_token").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void get_ShouldVerifyDifferentTokensSeparately() {
+        Function<String, VerifiedToken> verifier = verifier(Instant.now().plusSeconds(60));
+
+        verifiedTokenCache.get("a.b.c", verifier);
+        verifiedTokenCache.get("a.b.d", verifier);
+
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void get_ShouldNotShareKeyBetweenTokensDifferingOnlyInNonAsciiChars() {
+        Function<String, VerifiedToken> verifier = verifier(Instant.now().plusSeconds(60));
+
+        verifiedTokenCache.get("a.b.c\u00e9", verifier);
+        verifiedTokenCache.get("a.b.c\u00e8", verifier);
+        verifiedTokenCache.get("a.b.c?", verifier);
+        verifiedTokenCache.get("a.b.c\ud800", verifier);
+        verifiedTokenCache.get("a.b.c\udc00", verifier);
+
+        assertEquals(5, verifications.get());
+    }
+
+    @Test
+    void get_ShouldNotServeExpiredToken() throws InterruptedException {
+        verifiedTokenCache.get("a.b.c", verifier(Instant.now().plusMillis(20)));
+        Thread.sleep(40);
+
+        assertThrows(ExpiredJwtException.class, () -> verifiedTokenCache.get("a.b.c", token -> {
+            throw new ExpiredJwtException(null, null, "expired");
+        }));
+    }
+
+    @Test
+    void get_ShouldNotCacheRejectedToken() {
+        assertThrows(IllegalStateException.class, () -> verifiedTokenCache.get("a.b.c", token -> {
+            throw new IllegalStateException("assinatura inválida");
+        }));
+
+        verifiedTokenCache.get("a.b.c", verifier(Instant.now().plusSeconds(60)));
+
+        assertEquals(1, verifications.get());
+    }
+
+    private Function<String, VerifiedToken> verifier(Instant expiresAt) {
+        return token -> {
+            verifications.incrementAndGet();
+            Claims claims = Jwts.claims().subject("testUser").expiration(Date.from(expiresAt)).build();
+            return new VerifiedToken("testUser", expiresAt, claims);
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.exception.ApplicationException;
+import com.correia.augusto.card.api.repository.CardRepository;
+import com.correia.augusto.card.api.util.EncryptionUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardBackfillServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private EncryptionUtil encryptionUtil;
+
+    @Mock
+    private CardLookupCache cardLookupCache;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private CardBackfillService cardBackfillService;
+
+    @Test
+    void backfill_ShouldMovePastPageOfUndecryptableCards() {
+        // uma página inteira que falha ao decifrar não pode encerrar o backfill antes dos cartões bons
+        List<Card> ilegiveis = IntStream.rangeClosed(1, 500).mapToObj(i -> card(i, "corrompido")).toList();
+        Card legivel = card(501, "cifrado");
+        when(cardRepository.findBackfillPage(new UUID(0, 0), Limit.of(500))).thenReturn(ilegiveis);
+        when(cardRepository.findBackfillPage(new UUID(0, 500), Limit.of(500))).thenReturn(List.of(legivel));
+        when(cardRepository.findBackfillPage(new UUID(0, 501), Limit.of(500))).thenReturn(List.of());
+        when(encryptionUtil.decrypt("corrompido")).thenThrow(new ApplicationException("Card number decryption failed"));
+        when(encryptionUtil.decrypt("cifrado")).thenReturn("4111111111111111");
+        when(encryptionUtil.hash("4111111111111111")).thenReturn(new byte[32]);
+
+        cardBackfillService.backfill();
+
+        assertArrayEquals(new byte[32], legivel.getNumberHash());
+        assertEquals("4111********1111", legivel.getMaskedNumber());
+        verify(cardRepository, times(3)).findBackfillPage(any(), any());
+        verify(cardLookupCache).invalidate(legivel.getId(), legivel.getNumberHash());
+    }
+
+    private static Card card(long id, String number) {
+        Card card = new Card();
+        card.setId(new UUID(0, id));
+        card.setNumber(number);
+        return card;
+    }
+}
@@ -0,0 +1,98 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.service.CardIngestionPipeline.Line;
+import com.correia.augusto.card.api.util.ByteLineReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardIngestionPipelineTest {
+
+    @Test
+    void run_ShouldDeliverChunksInFileOrderRegardlessOfParallelism() throws IOException {
+        List<Integer> sequential = collect(new CardIngestionPipeline(1, 2));
+        List<Integer> parallel = collect(new CardIngestionPipeline(8, 4));
+
+        assertEquals(sequential, parallel);
+        assertEquals(2_500, parallel.size());
+        assertEquals(3, parallel.get(0));
+    }
+
+    @Test
+    void run_ShouldReturnLastLineReadWhenFileEnds() throws IOException {
+        CardIngestionPipeline pipeline = new CardIngestionPipeline(4, 2);
+        try {
+            int ultimaLinha = pipeline.run(reader(250), 1, (linha, inicio, fim) -> null, (chunk, ultima) -> true);
+
+            assertEquals(251, ultimaLinha);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void run_ShouldStopWhenConsumerAsks() throws IOException {
+        CardIngestionPipeline pipeline = new CardIngestionPipeline(4, 2);
+        List<Integer> chunks = new ArrayList<>();
+        try {
+            int ultimaLinha = pipeline.run(reader(100_000), 1, CardIngestionPipelineTest::text, (chunk, ultima) -> {
+                chunks.add(chunk.size());
+                return chunks.size() < 3;
+            });
+
+            assertEquals(-1, ultimaLinha);
+            assertEquals(3, chunks.size());
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void run_ShouldPropagateParserFailure() {
+        CardIngestionPipeline pipeline = new CardIngestionPipeline(4, 2);
+        try {
+            assertThrows(StringIndexOutOfBoundsException.class,
+                    () -> pipeline.run(new ByteLineReader(new ByteArrayInputStream("C1     4456897999999999\nC2\n".getBytes())), 1,
+                            (linha, inicio, fim) -> text(linha, inicio, fim).substring(7, fim - inicio - 1), (chunk, ultima) -> true));
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    private static List<Integer> collect(CardIngestionPipeline pipeline) throws IOException {
+        List<Integer> linhas = new ArrayList<>();
+        try {
+            pipeline.run(reader(5_000), 1, (bytes, inicio, fim) -> {
+                String linha = text(bytes, inicio, fim);
+                return Integer.parseInt(linha.substring(1)) % 2 == 0 ? linha : null;
+            }, (chunk, ultima) -> {
+                for (Line<String> line : chunk) {
+                    linhas.add(line.numero());
+                    assertEquals(line.numero() - 1, Integer.parseInt(line.conteudo().substring(1)));
+                }
+                return true;
+            });
+        } finally {
+            pipeline.shutdown();
+        }
+        return linhas;
+    }
+
+    private static ByteLineReader reader(int lines) {
+        StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= lines; i++) {
+            content.append('C').append(i).append('\n');
+        }
+        return new ByteLineReader(new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static String text(byte[] linha, int inicio, int fim) {
+        return new String(linha, inicio, fim - inicio, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,59 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.CardResponse;
+import com.correia.augusto.card.api.enums.CardType;
+import com.correia.augusto.card.api.service.CardLookupCache.CachedCard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardLookupCacheTest {
+
+    private static final UUID ID = UUID.randomUUID();
+    private static final byte[] NUMBER_HASH = new byte[]{1, 2, 3, 4};
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardLookupCache cardLookupCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cardLookupCache = new CardLookupCache(meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void putByNumberHash_ShouldServeBothLookupsAndRecordHitRatio() {
+        CachedCard card = cachedCard();
+
+        assertTrue(cardLookupCache.getByNumberHash(NUMBER_HASH).isEmpty());
+        cardLookupCache.putByNumberHash(NUMBER_HASH, ID, card);
+
+        // chave pelo conteúdo do hash, não pela instância do array
+        assertSame(card, cardLookupCache.getByNumberHash(NUMBER_HASH.clone()).orElseThrow());
+        assertSame(card, cardLookupCache.getById(ID).orElseThrow());
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tag("cache", "card_by_number").gauge().value());
+        assertEquals(1.0, meterRegistry.get("cache.hit.ratio").tag("cache", "card_by_id").gauge().value());
+    }
+
+    @Test
+    void invalidate_ShouldDropBothEntries() {
+        cardLookupCache.putByNumberHash(NUMBER_HASH, ID, cachedCard());
+
+        cardLookupCache.invalidate(ID, NUMBER_HASH);
+
+        assertTrue(cardLookupCache.getById(ID).isEmpty());
+        assertTrue(cardLookupCache.getByNumberHash(NUMBER_HASH).isEmpty());
+    }
+
+    private static CachedCard cachedCard() {
+        return new CachedCard(1L, new CardResponse(ID.toString(), "4111********1111", "Test User",
+                LocalDate.of(2030, 1, 31), CardType.CREDIT, Instant.now()));
+    }
+}
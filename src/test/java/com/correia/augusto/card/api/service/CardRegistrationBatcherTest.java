@@ -0,0 +1,210 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.repository.CardBulkWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardRegistrationBatcherTest {
+
+    private static final UUID PERDIDO = UUID.randomUUID();
+
+    private CardBulkWriter cardBulkWriter;
+    private CardRegistrationBatcher batcher;
+    private ExecutorService clientes;
+    private final AtomicInteger transacoes = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        cardBulkWriter = mock(CardBulkWriter.class);
+        when(cardBulkWriter.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<Card> cards = invocation.getArgument(0);
+            cards.forEach(card -> card.setId(UUID.randomUUID()));
+            return cards.size();
+        });
+        clientes = Executors.newFixedThreadPool(32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientes.shutdownNow();
+        batcher.shutdown();
+    }
+
+    @Test
+    void register_ShouldGroupConcurrentCallsIntoFewTransactions() throws Exception {
+        batcher = batcher(100, Duration.ofMillis(50));
+        int pedidos = 32;
+        CountDownLatch largada = new CountDownLatch(1);
+        List<CompletableFuture<Boolean>> resultados = new ArrayList<>();
+        for (int i = 0; i < pedidos; i++) {
+            Card card = card((byte) i);
+            resultados.add(CompletableFuture.supplyAsync(() -> {
+                await(largada);
+                return batcher.register(card);
+            }, clientes));
+        }
+
+        largada.countDown();
+        for (CompletableFuture<Boolean> resultado : resultados) {
+            assertTrue(resultado.get(5, TimeUnit.SECONDS));
+        }
+
+        // um único fsync por lote: bem menos transações que pedidos
+        assertTrue(transacoes.get() < pedidos / 4, "transações: " + transacoes.get());
+        verify(cardBulkWriter, atMost(pedidos / 4)).insertBatch(anyList());
+    }
+
+    @Test
+    void register_ShouldFlushWhenBatchIsFull() throws Exception {
+        batcher = batcher(2, Duration.ofSeconds(30));
+
+        CompletableFuture<Boolean> primeiro = CompletableFuture.supplyAsync(() -> batcher.register(card((byte) 1)), clientes);
+        CompletableFuture<Boolean> segundo = CompletableFuture.supplyAsync(() -> batcher.register(card((byte) 2)), clientes);
+
+        // não espera os 30s de max-wait: o lote de 2 já está cheio
+        assertTrue(primeiro.get(5, TimeUnit.SECONDS));
+        assertTrue(segundo.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void register_ShouldReportDuplicatesPerCaller() throws Exception {
+        batcher = batcher(2, Duration.ofSeconds(30));
+        // o número 7 já está no banco: a chave única ignora a linha e só o 8 é gravado
+        when(cardBulkWriter.insertBatch(anyList())).thenAnswer(invocation -> {
+            invocation.<List<Card>>getArgument(0).forEach(card -> card.setId(new UUID(0, card.getNumberHash()[0])));
+            return 1;
+        });
+        when(cardBulkWriter.findPersistedIds(anyList())).thenReturn(Set.of(new UUID(0, 8)));
+
+        CompletableFuture<Boolean> existente = CompletableFuture.supplyAsync(() -> batcher.register(card((byte) 7)), clientes);
+        CompletableFuture<Boolean> novo = CompletableFuture.supplyAsync(() -> batcher.register(card((byte) 8)), clientes);
+
+        assertFalse(existente.get(5, TimeUnit.SECONDS));
+        assertTrue(novo.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void register_ShouldRejectSecondCallWithSameNumberInBatch() throws Exception {
+        batcher = batcher(2, Duration.ofSeconds(30));
+
+        CompletableFuture<Boolean> primeiro = CompletableFuture.supplyAsync(() -> batcher.register(card((byte) 5)), clientes);
+        CompletableFuture<Boolean> segundo = CompletableFuture.supplyAsync(() -> batcher.register(card((byte) 5)), clientes);
+
+        assertEquals(1, (primeiro.get(5, TimeUnit.SECONDS) ? 1 : 0) + (segundo.get(5, TimeUnit.SECONDS) ? 1 : 0));
+        verify(cardBulkWriter).insertBatch(argThat(cards -> cards.size() == 1));
+    }
+
+    @Test
+    void register_ShouldReturnFalseWhenRowWasIgnored() {
+        batcher = batcher(10, Duration.ofMillis(1));
+        when(cardBulkWriter.insertBatch(anyList())).thenAnswer(invocation -> {
+            invocation.<List<Card>>getArgument(0).forEach(card -> card.setId(PERDIDO));
+            return 0;
+        });
+        when(cardBulkWriter.findPersistedIds(List.of(PERDIDO))).thenReturn(Set.of());
+
+        assertFalse(batcher.register(card((byte) 9)));
+    }
+
+    @Test
+    void register_ShouldPropagateDatabaseFailureToCaller() {
+        batcher = batcher(10, Duration.ofMillis(1));
+        when(cardBulkWriter.insertBatch(anyList())).thenThrow(new DataAccessResourceFailureException("banco fora"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> batcher.register(card((byte) 1)));
+    }
+
+    @Test
+    void register_ShouldRejectInsteadOfHangingAfterShutdown() {
+        batcher = batcher(10, Duration.ofMillis(1));
+        batcher.shutdown();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(RejectedExecutionException.class, () -> batcher.register(card((byte) 1))));
+    }
+
+    @Test
+    void register_ShouldFailPendingAndRejectNewCallsWhenWriterDies() {
+        batcher = batcher(10, Duration.ofMillis(1));
+        when(cardBulkWriter.insertBatch(anyList())).thenThrow(new StackOverflowError());
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(RejectedExecutionException.class, () -> batcher.register(card((byte) 1)));
+            assertThrows(RejectedExecutionException.class, () -> batcher.register(card((byte) 2)));
+        });
+        verify(cardBulkWriter, times(1)).insertBatch(anyList());
+    }
+
+    @Test
+    void register_ShouldGiveUpAfterTimeout() throws Exception {
+        CountDownLatch banco = new CountDownLatch(1);
+        batcher = batcher(10, Duration.ofMillis(1), Duration.ofMillis(200));
+        when(cardBulkWriter.insertBatch(anyList())).thenAnswer(invocation -> {
+            banco.await();
+            return invocation.<List<Card>>getArgument(0).size();
+        });
+
+        try {
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                    assertThrows(RejectedExecutionException.class, () -> batcher.register(card((byte) 1))));
+        } finally {
+            banco.countDown();
+        }
+    }
+
+    private CardRegistrationBatcher batcher(int maxBatchSize, Duration maxWait) {
+        return batcher(maxBatchSize, maxWait, Duration.ofSeconds(10));
+    }
+
+    private CardRegistrationBatcher batcher(int maxBatchSize, Duration maxWait, Duration timeout) {
+        TransactionTemplate transactionTemplate = spy(new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        doAnswer(invocation -> {
+            transacoes.incrementAndGet();
+            return invocation.callRealMethod();
+        }).when(transactionTemplate).execute(any());
+        return new CardRegistrationBatcher(cardBulkWriter, transactionTemplate,
+                true, maxBatchSize, maxWait, 1000, timeout);
+    }
+
+    private static Card card(byte marcador) {
+        Card card = new Card();
+        card.setNumberHash(hash(marcador));
+        return card;
+    }
+
+    private static byte[] hash(byte marcador) {
+        byte[] hash = new byte[32];
+        hash[0] = marcador;
+        return hash;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.CardRequest;
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.enums.CardType;
+import com.correia.augusto.card.api.exception.DuplicateDataException;
+import com.correia.augusto.card.api.repository.CardBulkWriter;
+import com.correia.augusto.card.api.repository.CardRepository;
+import com.correia.augusto.card.api.repository.LoteCheckpointRepository;
+import com.correia.augusto.card.api.security.UserIdentity;
+import com.correia.augusto.card.api.security.UserIdentityCache;
+import com.correia.augusto.card.api.support.CardDataH2;
+import com.correia.augusto.card.api.util.EncryptionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Cadastros concorrentes do mesmo número contra um banco real (H2 em modo MySQL):
+// exatamente um grava, os demais recebem DuplicateDataException, e nenhum sai como erro genérico (500).
+class CardServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int RODADAS = 20;
+
+    private EmbeddedDatabase dataSource;
+    private CardRegistrationBatcher batcher;
+    private ExecutorService clientes;
+
+    @AfterEach
+    void tearDown() {
+        clientes.shutdownNow();
+        batcher.shutdown();
+        dataSource.shutdown();
+    }
+
+    @Test
+    void registerCard_ShouldMapContentionToDuplicate() throws Exception {
+        CardService cardService = cardService(false);
+
+        assertOneWinnerPerNumber(cardService);
+    }
+
+    @Test
+    void registerCard_ShouldMapContentionToDuplicateWithGroupCommit() throws Exception {
+        CardService cardService = cardService(true);
+
+        assertOneWinnerPerNumber(cardService);
+    }
+
+    private void assertOneWinnerPerNumber(CardService cardService) throws Exception {
+        for (int rodada = 0; rodada < RODADAS; rodada++) {
+            CardRequest request = new CardRequest(String.format("41111111%08d", rodada), "Teste",
+                    LocalDate.now().plusYears(2), "123", CardType.CREDIT);
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                resultados.add(clientes.submit(registrar(cardService, request, largada)));
+            }
+            largada.countDown();
+
+            int gravados = 0;
+            for (Future<Boolean> resultado : resultados) {
+                try {
+                    if (resultado.get(10, TimeUnit.SECONDS)) {
+                        gravados++;
+                    }
+                } catch (ExecutionException e) {
+                    fail("cadastro concorrente terminou com erro inesperado", e.getCause());
+                }
+            }
+            assertEquals(1, gravados, "rodada " + rodada);
+        }
+        assertEquals(RODADAS, new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM card_data", Integer.class));
+    }
+
+    private static Callable<Boolean> registrar(CardService cardService, CardRequest request, CountDownLatch largada) {
+        return () -> {
+            largada.await();
+            try {
+                cardService.registerCard(request, "testUser");
+                return true;
+            } catch (DuplicateDataException e) {
+                return false;
+            }
+        };
+    }
+
+    private CardService cardService(boolean groupCommit) {
+        dataSource = CardDataH2.create("cards");
+        clientes = Executors.newFixedThreadPool(THREADS);
+
+        CardBulkWriter cardBulkWriter = new CardBulkWriter(new JdbcTemplate(dataSource), new NamedParameterJdbcTemplate(dataSource));
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        batcher = new CardRegistrationBatcher(cardBulkWriter, transactionTemplate, groupCommit, 100, Duration.ofMillis(2), 1000,
+                Duration.ofSeconds(10));
+
+        User user = User.builder().id(1L).username("testUser").build();
+        UserIdentityCache userIdentityCache = mock(UserIdentityCache.class);
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+
+        return new CardService(mock(CardRepository.class), cardBulkWriter, mock(CardIngestionPipeline.class),
+                userIdentityCache, encryptionUtil, mock(LoteCheckpointRepository.class), transactionTemplate,
+                LoteLayoutFixtures.layouts(), batcher, mock(CardLookupCache.class));
+    }
+}
@@ -0,0 +1,167 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.ProcessamentoResult;
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.repository.CardBulkWriter;
+import com.correia.augusto.card.api.repository.CardRepository;
+import com.correia.augusto.card.api.repository.LoteCheckpointRepository;
+import com.correia.augusto.card.api.security.UserIdentity;
+import com.correia.augusto.card.api.security.UserIdentityCache;
+import com.correia.augusto.card.api.util.EncryptionUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+// Contrato de streaming do processamento de lote: o arquivo é lido aos poucos, nunca inteiro, e o número de linhas
+// lidas à frente do que já foi gravado tem teto fixo (intervalo de commit + fila do pipeline + buffer do leitor),
+// não importa o tamanho do arquivo.
+class CardServiceStreamingTest {
+
+    private static final int COMMIT_INTERVAL = 1_000;
+    private static final int PARALLELISM = 2;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final int DETAIL_LINE_BYTES = 25;
+
+    private CardRepository cardRepository;
+    private CardIngestionPipeline cardIngestionPipeline;
+    private CardService cardService;
+    private LoteInputStream arquivo;
+    private long gravadas;
+    private long maiorAdiantamento;
+
+    @BeforeEach
+    void setUp() {
+        // stubOnly: os mocks não guardam as invocações, senão eles mesmos fariam o heap crescer com o arquivo
+        cardRepository = mock(CardRepository.class, withSettings().stubOnly());
+        UserIdentityCache userIdentityCache = mock(UserIdentityCache.class, withSettings().stubOnly());
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("testUser");
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        CardBulkWriter cardBulkWriter = mock(CardBulkWriter.class, withSettings().stubOnly());
+        when(cardBulkWriter.insert(anyList())).thenAnswer(invocation -> {
+            maiorAdiantamento = Math.max(maiorAdiantamento, arquivo.linhasLidas() - gravadas);
+            int size = invocation.<List<Card>>getArgument(0).size();
+            gravadas += size;
+            return size;
+        });
+
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+
+        cardIngestionPipeline = new CardIngestionPipeline(PARALLELISM, QUEUE_CAPACITY);
+        cardService = new CardService(cardRepository, cardBulkWriter, cardIngestionPipeline, userIdentityCache, encryptionUtil,
+                mock(LoteCheckpointRepository.class, withSettings().stubOnly()),
+                new TransactionTemplate(mock(PlatformTransactionManager.class, withSettings().stubOnly())),
+                LoteLayoutFixtures.layouts(), mock(CardRegistrationBatcher.class, withSettings().stubOnly()),
+                mock(CardLookupCache.class, withSettings().stubOnly()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cardIngestionPipeline.shutdown();
+    }
+
+    @Test
+    void processCardFile_ShouldBoundLinesReadAheadOfWrites() throws IOException {
+        ReflectionTestUtils.setField(cardService, "commitInterval", COMMIT_INTERVAL);
+        int lines = 20_000;
+        arquivo = new LoteInputStream(lines);
+
+        ProcessamentoResult result = cardService.processCardFile(arquivo, "testUser");
+
+        assertEquals(lines, result.cartoesProcessados());
+        long teto = COMMIT_INTERVAL
+                + (long) (QUEUE_CAPACITY + PARALLELISM + 2) * CardIngestionPipeline.CHUNK_SIZE
+                + 64 * 1024 / DETAIL_LINE_BYTES;
+        assertTrue(maiorAdiantamento <= teto,
+                maiorAdiantamento + " linhas lidas à frente das gravadas, teto " + teto);
+    }
+
+    /**
+     * Gera um lote sintético linha a linha, sem materializar o arquivo em memória. Não volta atrás e falha se alguém
+     * tentar ler o arquivo inteiro de uma vez.
+     */
+    private static class LoteInputStream extends InputStream {
+
+        private final int lines;
+        private int nextLine;
+        private byte[] current;
+        private int position;
+
+        LoteInputStream(int lines) {
+            this.lines = lines;
+            this.current = String.format("%-29s%s%-8s%06d\n", "LOTE-SINTETICO", "20180524", "LOTE9999", lines)
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int read() {
+            if (!advance()) {
+                return -1;
+            }
+            return current[position++];
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (!advance()) {
+                return -1;
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public byte[] readAllBytes() {
+            throw new AssertionError("o lote não pode ser lido inteiro em memória");
+        }
+
+        @Override
+        public byte[] readNBytes(int len) {
+            throw new AssertionError("o lote não pode ser lido inteiro em memória");
+        }
+
+        @Override
+        public long transferTo(OutputStream out) {
+            throw new AssertionError("o lote não pode ser copiado inteiro");
+        }
+
+        long linhasLidas() {
+            return nextLine;
+        }
+
+        private boolean advance() {
+            if (position < current.length) {
+                return true;
+            }
+            if (nextLine >= lines) {
+                return false;
+            }
+            nextLine++;
+            current = String.format("C%-6d4%015d \n", nextLine, nextLine).getBytes(StandardCharsets.US_ASCII);
+            position = 0;
+            return true;
+        }
+    }
+}
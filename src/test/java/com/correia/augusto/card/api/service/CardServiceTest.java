@@ -5,40 +5,84 @@ import com.correia.augusto.card.api.entities.*;
 import com.correia.augusto.card.api.enums.CardType;
 import com.correia.augusto.card.api.exception.*;
 import com.correia.augusto.card.api.repository.*;
+import com.correia.augusto.card.api.security.UserIdentity;
+import com.correia.augusto.card.api.security.UserIdentityCache;
 import com.correia.augusto.card.api.util.EncryptionUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class CardServiceTest {
 
+    private static final byte[] NUMBER_HASH = new byte[32];
+
     @Mock
     private CardRepository cardRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private CardBulkWriter cardBulkWriter;
+
+    @Mock
+    private UserIdentityCache userIdentityCache;
 
     @Mock
     private EncryptionUtil encryptionUtil;
 
+    @Mock
+    private LoteCheckpointRepository loteCheckpointRepository;
+
+    @Mock
+    private CardRegistrationBatcher cardRegistrationBatcher;
+
+    @Spy
+    private CardIngestionPipeline cardIngestionPipeline = new CardIngestionPipeline(2, 4);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private LoteLayouts loteLayouts = LoteLayoutFixtures.layouts();
+
+    @Spy
+    private CardLookupCache cardLookupCache = new CardLookupCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+
     @InjectMocks
     private CardService cardService;
 
+    @AfterEach
+    void tearDown() {
+        cardIngestionPipeline.shutdown();
+    }
+
     @Test
     void registerCard_ShouldSaveCardWhenValid() {
         CardRequest request = new CardRequest(
@@ -51,13 +95,15 @@ class CardServiceTest {
 
         User user = getUser();
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.hash("1234567890123456")).thenReturn(NUMBER_HASH);
         when(encryptionUtil.encrypt("1234567890123456")).thenReturn("encryptedNumber");
-        when(cardRepository.existsByNumber("encryptedNumber")).thenReturn(false);
+        when(cardBulkWriter.insertIfAbsent(any(Card.class))).thenReturn(true);
 
         cardService.registerCard(request, "testUser");
 
-        verify(cardRepository, times(1)).save(any(Card.class));
+        verify(cardBulkWriter, times(1)).insertIfAbsent(argThat(card -> card.getNumberHash() == NUMBER_HASH));
+        verify(cardRepository, never()).existsByNumberHash(any());
     }
 
     @Test
@@ -70,7 +116,7 @@ class CardServiceTest {
                 CardType.CREDIT
         );
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.empty());
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> cardService.registerCard(request, "testUser"));
@@ -88,14 +134,39 @@ class CardServiceTest {
 
         User user = getUser();
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.hash("1234567890123456")).thenReturn(NUMBER_HASH);
         when(encryptionUtil.encrypt("1234567890123456")).thenReturn("encryptedNumber");
-        when(cardRepository.existsByNumber("encryptedNumber")).thenReturn(true);
+        when(cardBulkWriter.insertIfAbsent(any(Card.class))).thenReturn(false);
 
         assertThrows(DuplicateDataException.class,
                 () -> cardService.registerCard(request, "testUser"));
     }
 
+    @Test
+    void registerCard_ShouldGoThroughGroupCommitWhenEnabled() {
+        CardRequest request = new CardRequest(
+                "1234567890123456",
+                "Test User",
+                LocalDate.now().plusYears(2),
+                "123",
+                CardType.CREDIT
+        );
+
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(getUser())));
+        when(encryptionUtil.hash("1234567890123456")).thenReturn(NUMBER_HASH);
+        when(encryptionUtil.encrypt("1234567890123456")).thenReturn("encryptedNumber");
+        when(cardRegistrationBatcher.isEnabled()).thenReturn(true);
+        when(cardRegistrationBatcher.register(any(Card.class))).thenReturn(true, false);
+
+        cardService.registerCard(request, "testUser");
+        assertThrows(DuplicateDataException.class, () -> cardService.registerCard(request, "testUser"));
+
+        verify(cardRegistrationBatcher, times(2)).register(argThat(card -> card.getNumberHash() == NUMBER_HASH
+                && card.getUser().getId().equals(1L)));
+        verify(cardBulkWriter, never()).insertIfAbsent(any());
+    }
+
     @Test
     void registerCard_ShouldThrowWhenInvalidExpirationDate() {
         CardRequest request = new CardRequest(
@@ -108,7 +179,7 @@ class CardServiceTest {
 
         User user = getUser();
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
 
         assertThrows(InvalidCardDataException.class,
                 () -> cardService.registerCard(request, "testUser"));
@@ -126,7 +197,7 @@ class CardServiceTest {
 
         User user = getUser();
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
 
         assertThrows(InvalidCardDataException.class,
                 () -> cardService.registerCard(request, "testUser"));
@@ -134,107 +205,395 @@ class CardServiceTest {
 
     @Test
     void getCardsByUserId_ShouldReturnCards() {
-        Card card1 = new Card();
-        card1.setId("1");
-        card1.setNumber("encrypted1");
+        CardView card1 = getCardView(cardId(1), "encrypted1", "1234********7890", null);
+        CardView card2 = getCardView(cardId(2), "encrypted2", "9876********3210", null);
 
-        Card card2 = new Card();
-        card2.setId("2");
-        card2.setNumber("encrypted2");
+        when(cardRepository.findFirstPageByUser(1L, Limit.of(51))).thenReturn(List.of(card1, card2));
 
-        when(cardRepository.findAllByUser(1L)).thenReturn(List.of(card1, card2));
-        when(encryptionUtil.decrypt("encrypted1")).thenReturn("123456******7890");
-        when(encryptionUtil.decrypt("encrypted2")).thenReturn("987654******3210");
+        CardPage result = cardService.getCardsByUserId(1L, null, null);
+
+        assertEquals(2, result.cards().size());
+        assertEquals("1234********7890", result.cards().get(0).maskedNumber());
+        assertEquals("9876********3210", result.cards().get(1).maskedNumber());
+        assertNull(result.nextCursor());
+        verifyNoInteractions(encryptionUtil);
+    }
+
+    @Test
+    void getCardsByUserId_ShouldMaskCardsNotYetBackfilled() {
+        CardView card = getCardView(cardId(1), "encrypted1", null, null);
 
-        List<CardResponse> result = cardService.getCardsByUserId(1L);
+        when(cardRepository.findFirstPageByUser(1L, Limit.of(51))).thenReturn(List.of(card));
+        when(encryptionUtil.decrypt("encrypted1")).thenReturn("1234567890127890");
 
-        assertEquals(2, result.size());
-        assertEquals("1234********7890", result.get(0).maskedNumber());
-        assertEquals("9876********3210", result.get(1).maskedNumber());
+        CardPage result = cardService.getCardsByUserId(1L, null, null);
+
+        assertEquals("1234********7890", result.cards().get(0).maskedNumber());
     }
 
     @Test
     void getCardsByUserId_ShouldReturnEmptyListWhenNoCards() {
-        when(cardRepository.findAllByUser(1L)).thenReturn(List.of());
+        when(cardRepository.findFirstPageByUser(1L, Limit.of(51))).thenReturn(List.of());
+
+        CardPage result = cardService.getCardsByUserId(1L, null, null);
+
+        assertTrue(result.cards().isEmpty());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void getCardsByUserId_ShouldContinueFromCursorOfLastCard() {
+        Instant createdAt = Instant.parse("2024-05-01T10:15:30Z");
+        List<CardView> firstPage = new ArrayList<>();
+        for (int i = 3; i >= 1; i--) {
+            firstPage.add(getCardView(cardId(i), "encrypted", "4111********1111", createdAt));
+        }
+        when(cardRepository.findFirstPageByUser(1L, Limit.of(3))).thenReturn(firstPage);
+
+        CardPage page = cardService.getCardsByUserId(1L, null, 2);
+
+        assertEquals(2, page.cards().size());
+        assertNotNull(page.nextCursor());
 
-        List<CardResponse> result = cardService.getCardsByUserId(1L);
+        when(cardRepository.findPageByUserAfter(1L, createdAt, cardId(2), Limit.of(3))).thenReturn(firstPage.subList(2, 3));
 
-        assertTrue(result.isEmpty());
+        CardPage next = cardService.getCardsByUserId(1L, page.nextCursor(), 2);
+
+        assertEquals(List.of(cardId(1).toString()), next.cards().stream().map(CardResponse::id).toList());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void getCardsByUserId_ShouldCapPageSize() {
+        when(cardRepository.findFirstPageByUser(1L, Limit.of(201))).thenReturn(List.of());
+
+        cardService.getCardsByUserId(1L, null, 1_000_000);
+
+        verify(cardRepository).findFirstPageByUser(1L, Limit.of(201));
+    }
+
+    @Test
+    void getCardsByUserId_ShouldRejectInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.getCardsByUserId(1L, "não-é-cursor", null));
+        verifyNoInteractions(cardRepository);
     }
 
     @Test
     void getCardById_ShouldReturnCard() {
-        Card card = getCard();
+        CardView card = getCardView(cardId(1), "encripted", "1234********7890", null);
 
-        when(cardRepository.findById("1")).thenReturn(Optional.of(card));
-        when(encryptionUtil.decrypt("encrypted")).thenReturn("123456******7890");
+        when(cardRepository.findViewById(cardId(1))).thenReturn(Optional.of(card));
 
-        CardResponse result = cardService.getCardById("1");
+        CardResponse result = cardService.getCardById(cardId(1).toString());
 
-        assertEquals("1", result.id());
+        assertEquals(cardId(1).toString(), result.id());
         assertEquals("1234********7890", result.maskedNumber());
         assertEquals("Test User", result.holderName());
+        verifyNoInteractions(encryptionUtil);
     }
 
 
 
     @Test
     void getCardById_ShouldThrowWhenNotFound() {
-        when(cardRepository.findById("1")).thenReturn(Optional.empty());
+        when(cardRepository.findViewById(cardId(1))).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class,
-                () -> cardService.getCardById("1"));
+                () -> cardService.getCardById(cardId(1).toString()));
+    }
+
+    @Test
+    void getCardById_ShouldServeRepeatLookupsFromCache() {
+        when(cardRepository.findViewById(cardId(1)))
+                .thenReturn(Optional.of(getCardView(cardId(1), "encripted", "1234********7890", null)));
+
+        CardResponse first = cardService.getCardById(cardId(1).toString());
+        CardResponse second = cardService.getCardById(cardId(1).toString());
+
+        assertSame(first, second);
+        verify(cardRepository, times(1)).findViewById(cardId(1));
+    }
+
+    @Test
+    void getCardById_ShouldThrowNotFoundForMalformedId() {
+        assertThrows(ResourceNotFoundException.class, () -> cardService.getCardById("1"));
+        verifyNoInteractions(cardRepository);
     }
 
     @Test
     void processCardFile_ShouldProcessValidFile() throws IOException {
         User user = getUser();
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
-        when(encryptionUtil.encrypt(anyString())).thenReturn("encrypted");
-        when(cardRepository.existsByNumber(anyString())).thenReturn(false);
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        when(cardBulkWriter.insert(anyList())).thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size());
 
-        byte[] fileContent = Files.readAllBytes(
-                new ClassPathResource("test-card-file.txt").getFile().toPath());
+        InputStream fileContent = new ClassPathResource("test-card-file.txt").getInputStream();
 
         ProcessamentoResult result = cardService.processCardFile(fileContent, "testUser");
 
-        assertEquals(10, result.cartoesProcessados());
+        // C3 repete C2 e C10 repete C8 dentro do próprio arquivo
+        assertEquals(8, result.cartoesProcessados());
         assertEquals(12, result.linhasLidas());
         assertEquals("LOTE0001", result.lote());
-        verify(cardRepository, atLeastOnce()).saveAll(anyList());
+        verify(cardBulkWriter, atLeastOnce()).insert(argThat(cards -> cards.stream()
+                .allMatch(card -> card.getMaskedNumber().matches("\\d{4}\\*+\\d{4}"))));
+    }
+
+    @Test
+    void processCardFile_ShouldNotCountHeaderOrTrailerAsErrors() throws IOException {
+        mockIngestion(getUser());
+        List<IngestionProgress> progresso = new ArrayList<>();
+
+        cardService.processCardFile(new ClassPathResource("test-card-file.txt").getInputStream(), "testUser",
+                null, progresso::add);
+
+        // cabeçalho, 10 detalhes válidos (2 repetidos) e o trailer LOTE0001000010
+        IngestionProgress ultimo = progresso.get(progresso.size() - 1);
+        assertEquals(8, ultimo.cartoesProcessados());
+        assertEquals(2, ultimo.duplicados());
+        assertEquals(0, ultimo.erros());
+    }
+
+    @Test
+    void processCardFile_ShouldCountRejectedDetailLinesAsErrors() throws IOException {
+        mockIngestion(getUser());
+        List<IngestionProgress> progresso = new ArrayList<>();
+        String conteudo = loteContent(3, 2) + "C3     12345\n" + "LOTE0001000003\n";
+
+        cardService.processCardFile(new ByteArrayInputStream(conteudo.getBytes()), "testUser", null, progresso::add);
+
+        IngestionProgress ultimo = progresso.get(progresso.size() - 1);
+        assertEquals(2, ultimo.cartoesProcessados());
+        assertEquals(1, ultimo.erros());
     }
 
     @Test
     void processCardFile_ShouldSkipDuplicateCards() throws IOException {
         User user = getUser();
 
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.of(user));
-        when(encryptionUtil.encrypt(anyString())).thenReturn("encrypted");
-        when(cardRepository.existsByNumber(anyString())).thenReturn(true); // Todos existem
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<byte[]>>getArgument(0))); // Todos existem
 
-        byte[] fileContent = Files.readAllBytes(
-                new ClassPathResource("test-card-file.txt").getFile().toPath());
+        InputStream fileContent = new ClassPathResource("test-card-file.txt").getInputStream();
 
         ProcessamentoResult result = cardService.processCardFile(fileContent, "testUser");
 
-        assertEquals(10, result.cartoesProcessados());
-        verify(cardRepository, never()).saveAll(anyList());
+        assertEquals(0, result.cartoesProcessados());
+        assertEquals(12, result.linhasLidas());
+        verify(cardBulkWriter, never()).insert(anyList());
+    }
+
+    @Test
+    void processCardFile_ShouldQueryDatabaseOncePerChunk() throws IOException {
+        User user = getUser();
+
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        when(cardBulkWriter.insert(anyList())).thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size());
+
+        InputStream fileContent = new ClassPathResource("test-card-file.txt").getInputStream();
+
+        cardService.processCardFile(fileContent, "testUser");
+
+        verify(cardRepository, times(1)).findExistingNumberHashes(anyCollection());
+        verify(cardRepository, never()).existsByNumberHash(any());
+    }
+
+    @Test
+    void processCardFile_ShouldStopAtHeaderCountAcrossChunks() throws IOException {
+        User user = getUser();
+        StringBuilder content = new StringBuilder("DESAFIO-HYPERATIVA           20180524LOTE0001000150\n");
+        for (int i = 1; i <= 300; i++) {
+            content.append(String.format("C%-6d4%015d \n", i, i));
+        }
+
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        when(cardBulkWriter.insert(anyList())).thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size());
+
+        ProcessamentoResult result = cardService.processCardFile(
+                new ByteArrayInputStream(content.toString().getBytes()), "testUser");
+
+        assertEquals(150, result.cartoesProcessados());
+        assertEquals(151, result.linhasLidas());
+    }
+
+    @Test
+    void processCardFile_ShouldCommitCheckpointEveryInterval() throws IOException {
+        User user = getUser();
+        ReflectionTestUtils.setField(cardService, "commitInterval", 100);
+
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        when(cardBulkWriter.insert(anyList())).thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size());
+
+        ProcessamentoResult result = cardService.processCardFile(
+                new ByteArrayInputStream(loteContent(300, 300).getBytes()), "testUser");
+
+        assertEquals(300, result.cartoesProcessados());
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(loteCheckpointRepository, times(3)).save(argThat(checkpoint -> checkpoint.getLote().equals("LOTE0001")));
+    }
+
+    @Test
+    void processCardFile_ShouldFillLimitWhenInsertSkipsConcurrentDuplicate() throws IOException {
+        User user = getUser();
+        StringBuilder content = new StringBuilder("DESAFIO-HYPERATIVA           20180524LOTE0001000050\n");
+        for (int i = 1; i <= 100; i++) {
+            content.append(String.format("C%-6d4%015d \n", i, i));
+        }
+
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        // o primeiro insert perde um cartão para um cadastro concorrente gravado depois da consulta
+        when(cardBulkWriter.insert(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size() - 1)
+                .thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size());
+
+        ProcessamentoResult result = cardService.processCardFile(
+                new ByteArrayInputStream(content.toString().getBytes()), "testUser");
+
+        assertEquals(50, result.cartoesProcessados());
+        assertEquals(52, result.linhasLidas());
+        verify(cardBulkWriter, times(2)).insert(anyList());
+        verify(loteCheckpointRepository).save(argThat(checkpoint -> checkpoint.isConcluido()
+                && checkpoint.getDuplicados() == 1 && checkpoint.getAvaliadas() == 51));
+    }
+
+    @Test
+    void processCardFile_ShouldResumeFromCheckpoint() throws IOException {
+        User user = getUser();
+        mockIngestion(user);
+        LoteCheckpoint checkpoint = LoteCheckpoint.builder()
+                .id(1L).lote("LOTE0001").user(user).ultimaLinha(101).cartoesProcessados(100)
+                .digest(digestAte(loteContent(300, 300), 101)).build();
+        clearInvocations(encryptionUtil, cardBulkWriter, loteCheckpointRepository);
+        when(loteCheckpointRepository.findByLoteAndUserId("LOTE0001", user.getId())).thenReturn(Optional.of(checkpoint));
+
+        ProcessamentoResult result = cardService.processCardFile(
+                new ByteArrayInputStream(loteContent(300, 300).getBytes()), "testUser");
+
+        assertEquals(300, result.cartoesProcessados());
+        assertEquals(301, result.linhasLidas());
+        // as 100 linhas já confirmadas não são criptografadas de novo
+        verify(encryptionUtil, times(200)).encryptBytes(any());
+        verify(encryptionUtil, never()).encryptBytes(aryEq("4000000000000100".getBytes()));
+        assertTrue(checkpoint.isConcluido());
+    }
+
+    @Test
+    void processCardFile_ShouldNotReprocessCompletedLote() throws IOException {
+        User user = getUser();
+        mockIngestion(user);
+        LoteCheckpoint checkpoint = LoteCheckpoint.builder()
+                .id(1L).lote("LOTE0001").user(user).ultimaLinha(301).cartoesProcessados(300).concluido(true)
+                .digest(digestAte(loteContent(300, 300), 301)).build();
+        clearInvocations(encryptionUtil, cardBulkWriter, loteCheckpointRepository);
+        when(loteCheckpointRepository.findByLoteAndUserId("LOTE0001", user.getId())).thenReturn(Optional.of(checkpoint));
+
+        ProcessamentoResult result = cardService.processCardFile(
+                new ByteArrayInputStream(loteContent(300, 300).getBytes()), "testUser");
+
+        assertEquals(300, result.cartoesProcessados());
+        assertEquals(301, result.linhasLidas());
+        verify(encryptionUtil, never()).encryptBytes(any());
+        verifyNoInteractions(cardBulkWriter);
+        verify(loteCheckpointRepository, never()).save(any());
+    }
+
+    @Test
+    void processCardFile_ShouldRejectDifferentFileWithSameLote() throws IOException {
+        User user = getUser();
+        mockIngestion(user);
+        String outroArquivo = loteContent(300, 300).replace("4000000000000050", "4999999999999950");
+        LoteCheckpoint concluido = LoteCheckpoint.builder()
+                .id(1L).lote("LOTE0001").user(user).ultimaLinha(301).cartoesProcessados(300).concluido(true)
+                .digest(digestAte(loteContent(300, 300), 301)).build();
+        LoteCheckpoint parcial = LoteCheckpoint.builder()
+                .id(1L).lote("LOTE0001").user(user).ultimaLinha(101).cartoesProcessados(100)
+                .digest(digestAte(loteContent(300, 300), 101)).build();
+        clearInvocations(encryptionUtil, cardBulkWriter, loteCheckpointRepository);
+        when(loteCheckpointRepository.findByLoteAndUserId("LOTE0001", user.getId()))
+                .thenReturn(Optional.of(concluido), Optional.of(parcial));
+
+        assertThrows(IllegalArgumentException.class, () -> cardService.processCardFile(
+                new ByteArrayInputStream(outroArquivo.getBytes()), "testUser"));
+        assertThrows(IllegalArgumentException.class, () -> cardService.processCardFile(
+                new ByteArrayInputStream(outroArquivo.getBytes()), "testUser"));
+        verify(encryptionUtil, never()).encryptBytes(any());
+        verifyNoInteractions(cardBulkWriter);
+        verify(loteCheckpointRepository, never()).save(any());
+    }
+
+    private void mockIngestion(User user) {
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(encryptionUtil.encryptBytes(any())).thenReturn("encrypted".getBytes());
+        when(encryptionUtil.hashBytes(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(cardRepository.findExistingNumberHashes(anyCollection())).thenReturn(List.of());
+        when(cardBulkWriter.insert(anyList())).thenAnswer(invocation -> invocation.<List<Card>>getArgument(0).size());
+    }
+
+    // Digest que o próprio serviço grava no checkpoint ao confirmar o arquivo até ultimaLinha.
+    private byte[] digestAte(String conteudo, int ultimaLinha) throws IOException {
+        ReflectionTestUtils.setField(cardService, "commitInterval", 100);
+        List<byte[]> digests = new ArrayList<>();
+        doAnswer(invocation -> {
+            LoteCheckpoint checkpoint = invocation.getArgument(0);
+            if (checkpoint.getUltimaLinha() == ultimaLinha) {
+                digests.add(checkpoint.getDigest());
+            }
+            return checkpoint;
+        }).when(loteCheckpointRepository).save(any());
+        cardService.processCardFile(new ByteArrayInputStream(conteudo.getBytes()), "testUser");
+        ReflectionTestUtils.setField(cardService, "commitInterval", 10_000);
+        return digests.get(0);
+    }
+
+    private static String loteContent(int registros, int linhas) {
+        StringBuilder content = new StringBuilder(String.format("%-29s20180524LOTE0001%06d\n", "DESAFIO-HYPERATIVA", registros));
+        for (int i = 1; i <= linhas; i++) {
+            content.append(String.format("C%-6d4%015d \n", i, i));
+        }
+        return content.toString();
     }
 
     @Test
     void processCardFile_ShouldThrowWhenUserNotFound() {
-        when(userRepository.findByUsername("testUser")).thenReturn(Optional.empty());
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.empty());
 
-        byte[] fileContent = "DESAFIO-HYPERATIVA           20180524LOTE0001000010".getBytes();
+        InputStream fileContent = new ByteArrayInputStream("DESAFIO-HYPERATIVA           20180524LOTE0001000010".getBytes());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> cardService.processCardFile(fileContent, "testUser"));
     }
 
+    @Test
+    void processCardFile_ShouldRejectOversizedUnterminatedLine() {
+        when(userIdentityCache.find("testUser")).thenReturn(Optional.of(UserIdentity.of(getUser())));
+        String conteudo = loteContent(3, 2) + "C3     " + "4".repeat(4 * 1024 * 1024);
+
+        assertThrows(IllegalArgumentException.class, () -> cardService.processCardFile(
+                new ByteArrayInputStream(conteudo.getBytes()), "testUser"));
+        verifyNoInteractions(cardBulkWriter);
+    }
+
     @Test
     void processCardFile_ShouldThrowWhenInvalidHeader() {
-        byte[] invalidContent = "INVALID-HEADER".getBytes();
+        InputStream invalidContent = new ByteArrayInputStream("INVALID-HEADER".getBytes());
 
         assertThrows(ResourceNotFoundException.class,
                 () -> cardService.processCardFile(invalidContent, "testUser"));
@@ -243,43 +602,77 @@ class CardServiceTest {
     @Test
     void findByCardNumber_ShouldReturnCard_WhenValid() {
         String cardNumber = "4111111111111111";
-        String encrypted = "encrypted-123";
         User user = getUser();
-        Card card = getCard();
 
-        when(encryptionUtil.encrypt(cardNumber)).thenReturn(encrypted);
-        when(encryptionUtil.decrypt(anyString())).thenReturn(cardNumber);
-        when(userRepository.findByUsername("user1")).thenReturn(Optional.of(user));
-        when(cardRepository.findByEncryptedNumber(encrypted)).thenReturn(Optional.of(card));
+        when(encryptionUtil.hash(cardNumber)).thenReturn(NUMBER_HASH);
+        when(userIdentityCache.find("user1")).thenReturn(Optional.of(UserIdentity.of(user)));
+        when(cardRepository.findViewByNumberHashAndUser(NUMBER_HASH, 1L))
+                .thenReturn(Optional.of(getCardView(cardId(1), "encripted", "4111********1111", null)));
 
         CardResponse response = cardService.findByCardNumber(cardNumber, "user1");
 
         assertNotNull(response);
-        verify(encryptionUtil).encrypt(cardNumber);
+        assertEquals("4111********1111", response.maskedNumber());
+        verify(encryptionUtil).hash(cardNumber);
+        verify(encryptionUtil, never()).decrypt(anyString());
+        verify(cardRepository, never()).existsByNumberHash(any());
+    }
+
+    @Test
+    void findByCardNumber_ShouldServeRepeatLookupsFromCacheAndStillCheckOwner() {
+        when(encryptionUtil.hash(anyString())).thenReturn(NUMBER_HASH);
+        when(userIdentityCache.find("user1")).thenReturn(Optional.of(UserIdentity.of(getUser())));
+        User requester = new User();
+        requester.setId(2L);
+        when(userIdentityCache.find("requester")).thenReturn(Optional.of(UserIdentity.of(requester)));
+        when(cardRepository.findViewByNumberHashAndUser(NUMBER_HASH, 1L))
+                .thenReturn(Optional.of(getCardView(cardId(1), "encripted", "4111********1111", null)));
+
+        CardResponse first = cardService.findByCardNumber("4111111111111111", "user1");
+        CardResponse second = cardService.findByCardNumber("4111111111111111", "user1");
+
+        assertSame(first, second);
+        assertSame(first, cardService.getCardById(cardId(1).toString()));
+        assertThrows(AuthenticationFailedException.class,
+                () -> cardService.findByCardNumber("4111111111111111", "requester"));
+        verify(cardRepository, times(1)).findViewByNumberHashAndUser(any(), any());
+        verify(cardRepository, never()).findViewById(any());
+        verify(cardRepository, never()).existsByNumberHash(any());
     }
 
     @Test
     void findByCardNumber_ShouldThrow_WhenWrongUser() {
         User requester = new User();
-        Card card = getCard();
+        requester.setId(2L);
 
-        when(encryptionUtil.encrypt(any())).thenReturn("encrypted");
-        when(userRepository.findByUsername("requester")).thenReturn(Optional.of(requester));
-        when(cardRepository.findByEncryptedNumber(any())).thenReturn(Optional.of(card));
+        when(encryptionUtil.hash(anyString())).thenReturn(NUMBER_HASH);
+        when(userIdentityCache.find("requester")).thenReturn(Optional.of(UserIdentity.of(requester)));
+        when(cardRepository.findViewByNumberHashAndUser(NUMBER_HASH, 2L)).thenReturn(Optional.empty());
+        when(cardRepository.existsByNumberHash(NUMBER_HASH)).thenReturn(true);
 
         assertThrows(AuthenticationFailedException.class,
                 () -> cardService.findByCardNumber("4111111111111111", "requester"));
     }
 
-    private static @NotNull Card getCard() {
-        Card card = new Card();
-        card.setId("1");
-        card.setNumber("encripted");
-        card.setHolderName("Test User");
-        card.setUser(getUser());
-        return card;
+    @Test
+    void findByCardNumber_ShouldThrowNotFound_WhenNoCardHasTheNumber() {
+        when(encryptionUtil.hash(anyString())).thenReturn(NUMBER_HASH);
+        when(userIdentityCache.find("user1")).thenReturn(Optional.of(UserIdentity.of(getUser())));
+        when(cardRepository.findViewByNumberHashAndUser(NUMBER_HASH, 1L)).thenReturn(Optional.empty());
+        when(cardRepository.existsByNumberHash(NUMBER_HASH)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class,
+                () -> cardService.findByCardNumber("4111111111111111", "user1"));
     }
 
+    private static UUID cardId(int n) {
+        return new UUID(0x0190000000007000L, 0x8000000000000000L | n);
+    }
+
+    private static CardView getCardView(UUID id, String number, String maskedNumber, Instant createdAt) {
+        return new CardView(id, number, maskedNumber, "Test User", LocalDate.of(2030, 1, 31), CardType.CREDIT,
+                createdAt, 1L);
+    }
 
     private static @NotNull User getUser() {
         User user = new User();
@@ -0,0 +1,26 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.config.LoteLayoutProperties;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.Campo;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.DetalheSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.HeaderSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.LayoutSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.TrailerSpec;
+
+import java.util.Map;
+
+// Mesmo layout declarado em application.yml, para os testes que não sobem o contexto.
+final class LoteLayoutFixtures {
+
+    static final LayoutSpec HYPERATIVA = new LayoutSpec(
+            new HeaderSpec(new Campo(0, 29), new Campo(29, 37), "yyyyMMdd", new Campo(37, 45), new Campo(45, 51)),
+            new DetalheSpec("", new Campo(7, -1)),
+            new TrailerSpec("LOTE"));
+
+    private LoteLayoutFixtures() {
+    }
+
+    static LoteLayouts layouts() {
+        return new LoteLayouts(new LoteLayoutProperties("hyperativa", Map.of("hyperativa", HYPERATIVA)));
+    }
+}
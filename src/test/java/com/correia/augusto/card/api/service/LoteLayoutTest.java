@@ -0,0 +1,161 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.config.LoteLayoutProperties;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.Campo;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.DetalheSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.HeaderSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.LayoutSpec;
+import com.correia.augusto.card.api.config.LoteLayoutProperties.TrailerSpec;
+import com.correia.augusto.card.api.service.LoteLayout.LoteHeader;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoteLayoutTest {
+
+    private final LoteLayout layout = LoteLayoutFixtures.layouts().get(null);
+
+    @Test
+    void parseHeader_ShouldExtractFixedWidthFields() {
+        byte[] linha = "DESAFIO-HYPERATIVA           20180524LOTE0001000010".getBytes(StandardCharsets.US_ASCII);
+
+        LoteHeader header = layout.parseHeader(linha, 0, linha.length);
+
+        assertEquals("DESAFIO-HYPERATIVA", header.nome());
+        assertEquals(LocalDate.of(2018, 5, 24), header.dataProcessamento());
+        assertEquals("LOTE0001", header.lote());
+        assertEquals(10, header.qtdRegistros());
+    }
+
+    @Test
+    void parseHeader_ShouldRejectShortOrMalformedHeader() {
+        byte[] curto = "INVALID-HEADER".getBytes(StandardCharsets.US_ASCII);
+        byte[] dataInvalida = "DESAFIO-HYPERATIVA           20181324LOTE0001000010".getBytes(StandardCharsets.US_ASCII);
+        byte[] quantidadeInvalida = "DESAFIO-HYPERATIVA           20180524LOTE00010000X0".getBytes(StandardCharsets.US_ASCII);
+
+        assertThrows(IllegalArgumentException.class, () -> layout.parseHeader(curto, 0, curto.length));
+        assertThrows(IllegalArgumentException.class, () -> layout.parseHeader(dataInvalida, 0, dataInvalida.length));
+        assertThrows(IllegalArgumentException.class,
+                () -> layout.parseHeader(quantidadeInvalida, 0, quantidadeInvalida.length));
+    }
+
+    @Test
+    void cardNumber_ShouldMatchStringParsingForSampleFile() throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource("test-card-file.txt").getInputStream(), StandardCharsets.US_ASCII))) {
+            reader.readLine();
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                assertEquivalent(linha);
+            }
+        }
+    }
+
+    @Test
+    void cardNumber_ShouldMatchStringParsingForEdgeCases() {
+        assertEquivalent("C1     4456897999999999 ");
+        assertEquivalent("C2       4456897999999999  ");
+        assertEquivalent("C3     445689799999\t");
+        assertEquivalent("C4     44568979999999999999 ");
+    }
+
+    @Test
+    void cardNumber_ShouldOffsetIntoSharedBuffer() {
+        byte[] bloco = "XXC1     4456897999999999 YY".getBytes(StandardCharsets.US_ASCII);
+
+        assertArrayEquals("4456897999999999".getBytes(StandardCharsets.US_ASCII),
+                layout.cardNumber(bloco, 2, bloco.length - 2));
+    }
+
+    @Test
+    void cardNumber_ShouldSkipLinesShorterThanTheNumberField() {
+        byte[] linha = "C2".getBytes(StandardCharsets.US_ASCII);
+        byte[] semNumero = "C5     ".getBytes(StandardCharsets.US_ASCII);
+
+        assertNull(layout.cardNumber(linha, 0, linha.length));
+        assertNull(layout.cardNumber(semNumero, 0, semNumero.length));
+    }
+
+    @Test
+    void cardNumber_ShouldIgnoreTrailer() {
+        byte[] trailer = "LOTE0001000000000010".getBytes(StandardCharsets.US_ASCII);
+
+        assertNull(layout.cardNumber(trailer, 0, trailer.length));
+    }
+
+    @Test
+    void compile_ShouldSupportPartnerLayoutWithOtherPositions() {
+        LoteLayout parceiro = LoteLayout.compile("parceiro", new LayoutSpec(
+                new HeaderSpec(new Campo(10, 30), new Campo(0, 8), "ddMMyyyy", new Campo(30, 36), new Campo(36, 43)),
+                new DetalheSpec("D", new Campo(1, 20)),
+                new TrailerSpec("T")));
+        byte[] header = "2405201800PARCEIRO X          LT00420000003".getBytes(StandardCharsets.US_ASCII);
+        byte[] detalhe = "D   4456897999999999XXXX".getBytes(StandardCharsets.US_ASCII);
+        byte[] outroRegistro = "E   4456897999999999XXXX".getBytes(StandardCharsets.US_ASCII);
+
+        LoteHeader lote = parceiro.parseHeader(header, 0, header.length);
+
+        assertEquals("PARCEIRO X", lote.nome());
+        assertEquals(LocalDate.of(2018, 5, 24), lote.dataProcessamento());
+        assertEquals("LT0042", lote.lote());
+        assertEquals(3, lote.qtdRegistros());
+        assertArrayEquals("4456897999999999".getBytes(StandardCharsets.US_ASCII),
+                parceiro.cardNumber(detalhe, 0, detalhe.length));
+        assertNull(parceiro.cardNumber(outroRegistro, 0, outroRegistro.length));
+    }
+
+    @Test
+    void compile_ShouldRejectInvalidSpecs() {
+        DetalheSpec detalhe = new DetalheSpec("", new Campo(7, -1));
+        HeaderSpec dataSemAno = new HeaderSpec(new Campo(0, 29), new Campo(29, 37), "ddMMMMdd", new Campo(37, 45), new Campo(45, 51));
+        HeaderSpec campoInvertido = new HeaderSpec(new Campo(29, 0), new Campo(29, 37), "yyyyMMdd", new Campo(37, 45), new Campo(45, 51));
+
+        assertThrows(IllegalStateException.class, () -> LoteLayout.compile("x", new LayoutSpec(dataSemAno, detalhe, null)));
+        assertThrows(IllegalStateException.class, () -> LoteLayout.compile("x", new LayoutSpec(campoInvertido, detalhe, null)));
+        assertThrows(IllegalStateException.class, () -> LoteLayout.compile("x", new LayoutSpec(null, detalhe, null)));
+    }
+
+    @Test
+    void layouts_ShouldRejectUnknownLayoutAndMissingDefault() {
+        LoteLayouts layouts = LoteLayoutFixtures.layouts();
+
+        assertSame(layouts.get(null), layouts.get("hyperativa"));
+        assertThrows(IllegalArgumentException.class, () -> layouts.get("parceiro-x"));
+        assertThrows(IllegalStateException.class, () -> new LoteLayouts(
+                new LoteLayoutProperties("outro", Map.of("hyperativa", LoteLayoutFixtures.HYPERATIVA))));
+    }
+
+    @Test
+    void applicationYml_ShouldDeclareTheDefaultLayout() throws IOException {
+        Binder binder = new Binder(ConfigurationPropertySources.from(
+                new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"))));
+
+        LoteLayoutProperties properties = binder.bind("card.layouts", LoteLayoutProperties.class).get();
+
+        assertEquals(LoteLayoutFixtures.HYPERATIVA, properties.definicoes().get(properties.padrao()));
+    }
+
+    // Regra anterior, baseada em String: substring(7, tamanho - 1).trim() com 13 a 19 posições.
+    private void assertEquivalent(String linha) {
+        String esperado = linha.substring(7, linha.length() - 1).trim();
+        if (esperado.length() < 13 || esperado.length() > 19) {
+            esperado = null;
+        }
+
+        byte[] bytes = linha.getBytes(StandardCharsets.US_ASCII);
+        byte[] numero = layout.cardNumber(bytes, 0, bytes.length);
+
+        assertEquals(esperado, numero == null ? null : new String(numero, StandardCharsets.US_ASCII), linha);
+    }
+}
@@ -0,0 +1,187 @@
+package com.correia.augusto.card.api.service;
+
+import com.correia.augusto.card.api.dto.ProcessamentoResult;
+import com.correia.augusto.card.api.dto.UploadJobResponse;
+import com.correia.augusto.card.api.entities.UploadJob;
+import com.correia.augusto.card.api.enums.UploadJobStatus;
+import com.correia.augusto.card.api.exception.ResourceNotFoundException;
+import com.correia.augusto.card.api.repository.UploadJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UploadJobServiceTest {
+
+    @TempDir
+    Path spoolDir;
+
+    private UploadJobRepository uploadJobRepository;
+    private CardService cardService;
+    private UploadJobService uploadJobService;
+    private final AtomicReference<UploadJob> saved = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        uploadJobRepository = mock(UploadJobRepository.class);
+        cardService = mock(CardService.class);
+        when(uploadJobRepository.save(any(UploadJob.class))).thenAnswer(invocation -> {
+            UploadJob job = invocation.getArgument(0);
+            saved.set(job);
+            return job;
+        });
+        when(uploadJobRepository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(saved.get()));
+
+        uploadJobService = new UploadJobService(uploadJobRepository, cardService, LoteLayoutFixtures.layouts(),
+                mock(PlatformTransactionManager.class), 1, 2, spoolDir.toString(), "node-a");
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadJobService.shutdown();
+    }
+
+    @Test
+    void submit_ShouldQueueJobAndCompleteInBackground() throws Exception {
+        when(cardService.processCardFile(any(InputStream.class), eq("testUser"), isNull(), any(IngestionProgressListener.class)))
+                .thenReturn(new ProcessamentoResult(8, 12, "LOTE0001"));
+
+        UploadJobResponse response = uploadJobService.submit(
+                new MockMultipartFile("file", "lote.txt", "text/plain", "conteudo".getBytes()), "testUser", null);
+
+        assertNotNull(response.jobId());
+        assertEquals(UploadJobStatus.QUEUED, response.status());
+
+        UploadJob job = awaitStatus(UploadJobStatus.COMPLETED);
+        assertEquals("node-a", job.getNodeId());
+        assertEquals(8, job.getCartoesProcessados());
+        assertEquals(12, job.getLinhasLidas());
+        assertEquals("LOTE0001", job.getLote());
+        assertNull(job.getFilePath());
+        try (var files = Files.list(spoolDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void submit_ShouldMarkJobFailedWhenProcessingFails() throws Exception {
+        when(cardService.processCardFile(any(InputStream.class), eq("testUser"), isNull(), any(IngestionProgressListener.class)))
+                .thenThrow(new IllegalArgumentException("Arquivo inválido"));
+
+        uploadJobService.submit(new MockMultipartFile("file", "lote.txt", "text/plain", "x".getBytes()), "testUser", null);
+
+        UploadJob job = awaitStatus(UploadJobStatus.FAILED);
+        assertEquals("Arquivo inválido", job.getMensagem());
+    }
+
+    @Test
+    void submit_ShouldRejectUnknownLayoutBeforeQueueing() {
+        MockMultipartFile file = new MockMultipartFile("file", "lote.txt", "text/plain", "x".getBytes());
+
+        assertThrows(IllegalArgumentException.class, () -> uploadJobService.submit(file, "testUser", "parceiro-x"));
+        verify(uploadJobRepository, never()).save(any());
+    }
+
+    @Test
+    void getJob_ShouldThrowWhenJobBelongsToAnotherUser() {
+        when(uploadJobRepository.findByIdAndUsername("job-1", "otherUser")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> uploadJobService.getJob("job-1", "otherUser"));
+    }
+
+    @Test
+    void recoverJobs_ShouldFailJobsWhoseFileIsGone() {
+        UploadJob job = UploadJob.builder()
+                .id("job-1")
+                .username("testUser")
+                .status(UploadJobStatus.RUNNING)
+                .filePath(spoolDir.resolve("job-1.txt").toString())
+                .nodeId("node-a")
+                .build();
+        saved.set(job);
+        when(uploadJobRepository.findByNodeIdAndStatusIn(eq("node-a"), anyCollection())).thenReturn(List.of(job));
+
+        uploadJobService.recoverJobs();
+
+        assertEquals(UploadJobStatus.FAILED, job.getStatus());
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void recoverJobs_ShouldLeaveOtherNodesJobsAlone() {
+        // o job de outro nó está rodando lá, com o arquivo no disco de lá: este nó nem chega a vê-lo
+        when(uploadJobRepository.findByNodeIdAndStatusIn(eq("node-a"), anyCollection())).thenReturn(List.of());
+
+        uploadJobService.recoverJobs();
+
+        verify(uploadJobRepository).findByNodeIdAndStatusIn(eq("node-a"), anyCollection());
+        verify(uploadJobRepository, never()).findById(anyString());
+        verify(uploadJobRepository, never()).save(any());
+        verifyNoInteractions(cardService);
+    }
+
+    @Test
+    void recoverJobs_ShouldDeleteSpoolFileWhenQueueIsFull() throws Exception {
+        CountDownLatch processando = new CountDownLatch(1);
+        when(cardService.processCardFile(any(InputStream.class), eq("testUser"), isNull(), any(IngestionProgressListener.class)))
+                .thenAnswer(invocation -> {
+                    processando.await();
+                    return new ProcessamentoResult(0, 1, "LOTE0001");
+                });
+        // concorrência 1 e fila 2: o quarto job recuperado não cabe
+        Map<String, UploadJob> jobs = new HashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            Path arquivo = Files.writeString(spoolDir.resolve("job-" + i + ".txt"), "conteudo");
+            jobs.put("job-" + i, UploadJob.builder()
+                    .id("job-" + i)
+                    .username("testUser")
+                    .status(UploadJobStatus.QUEUED)
+                    .filePath(arquivo.toString())
+                    .nodeId("node-a")
+                    .build());
+        }
+        when(uploadJobRepository.findById(anyString())).thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<String>getArgument(0))));
+        when(uploadJobRepository.findByNodeIdAndStatusIn(eq("node-a"), anyCollection()))
+                .thenReturn(List.of(jobs.get("job-1"), jobs.get("job-2"), jobs.get("job-3"), jobs.get("job-4")));
+
+        try {
+            uploadJobService.recoverJobs();
+
+            assertEquals(UploadJobStatus.FAILED, jobs.get("job-4").getStatus());
+            assertFalse(Files.exists(spoolDir.resolve("job-4.txt")));
+            assertTrue(Files.exists(spoolDir.resolve("job-3.txt")));
+        } finally {
+            processando.countDown();
+        }
+    }
+
+    private UploadJob awaitStatus(UploadJobStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            UploadJob job = saved.get();
+            if (job != null && job.getStatus() == status) {
+                return job;
+            }
+            Thread.sleep(20);
+        }
+        fail("job não chegou ao status " + status);
+        return null;
+    }
+}
@@ -3,6 +3,7 @@ package com.correia.augusto.card.api.service;
 import com.correia.augusto.card.api.entities.User;
 import com.correia.augusto.card.api.enums.Role;
 import com.correia.augusto.card.api.repository.UserRepository;
+import com.correia.augusto.card.api.security.UserIdentityCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -22,6 +23,9 @@ class UserDetailsServiceImplTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserIdentityCache userIdentityCache;
+
     @InjectMocks
     private UserDetailsServiceImpl userDetailsService;
 
@@ -42,6 +46,7 @@ class UserDetailsServiceImplTest {
         assertTrue(userDetails.isEnabled());
 
         verify(userRepository, times(1)).findByUsername(username);
+        verify(userIdentityCache).put(mockUser);
     }
 
     @Test
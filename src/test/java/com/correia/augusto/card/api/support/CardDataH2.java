@@ -0,0 +1,44 @@
+package com.correia.augusto.card.api.support;
+
+import com.correia.augusto.card.api.entities.Card;
+import com.correia.augusto.card.api.entities.User;
+import com.correia.augusto.card.api.enums.CardType;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// H2 em modo MySQL com a card_data reduzida de db/card_data_h2.sql, para os testes que gravam em banco
+// sem subir o contexto; cada chamada cria um banco novo e isolado.
+public final class CardDataH2 {
+
+    private CardDataH2() {
+    }
+
+    public static EmbeddedDatabase create(String nome) {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(nome + "-" + UUID.randomUUID() + ";MODE=MySQL")
+                .addScript("db/card_data_h2.sql")
+                .build();
+    }
+
+    // Cartão de teste do usuário 1; o número define o conteúdo cifrado e o primeiro byte do hash.
+    public static Card card(int numero) {
+        byte[] hash = new byte[32];
+        hash[0] = (byte) numero;
+        return Card.builder()
+                .number("enc-" + numero)
+                .numberHash(hash)
+                .maskedNumber("4111 **** **** 1111")
+                .holderName("Teste")
+                .lote("LOTE0001")
+                .expirationDate(LocalDate.of(2099, 12, 31))
+                .cvv("123")
+                .type(CardType.CREDIT)
+                .user(User.builder().id(1L).build())
+                .build();
+    }
+}
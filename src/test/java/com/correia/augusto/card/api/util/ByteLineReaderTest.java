@@ -0,0 +1,111 @@
+package com.correia.augusto.card.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteLineReaderTest {
+
+    @Test
+    void readLine_ShouldMatchBufferedReaderForAllLineTerminators() throws IOException {
+        String content = "A1\nB22\r\nC333\rD4444\n\nE";
+
+        assertEquals(readWithBufferedReader(content), readAll(new ByteArrayInputStream(bytes(content))));
+    }
+
+    @Test
+    void readLine_ShouldHandleLinesSplitAcrossReads() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            content.append("C").append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        content.append("X".repeat(200_000)).append('\n');
+
+        // entrega poucos bytes por leitura para forçar \r\n e linhas divididas entre blocos
+        InputStream trickle = new ByteArrayInputStream(bytes(content.toString())) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+
+        assertEquals(readWithBufferedReader(content.toString()), readAll(trickle));
+    }
+
+    @Test
+    void readLine_ShouldReturnFalseForEmptyInput() throws IOException {
+        try (ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(new byte[0]))) {
+            assertFalse(reader.readLine());
+        }
+    }
+
+    @Test
+    void readLine_ShouldRejectUnterminatedLineLongerThanLimit() throws IOException {
+        // 64 MB sem nenhum terminador, gerados sob demanda: o leitor precisa falhar sem bufferizar tudo
+        InputStream semTerminador = new InputStream() {
+            private long restantes = 64L * 1024 * 1024;
+
+            @Override
+            public int read() {
+                return restantes-- > 0 ? 'X' : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (restantes <= 0) {
+                    return -1;
+                }
+                int n = (int) Math.min(len, restantes);
+                Arrays.fill(b, off, off + n, (byte) 'X');
+                restantes -= n;
+                return n;
+            }
+        };
+
+        try (ByteLineReader reader = new ByteLineReader(semTerminador, 1024)) {
+            assertThrows(IllegalArgumentException.class, reader::readLine);
+            assertTrue(reader.buffer().length <= 128 * 1024, "buffer: " + reader.buffer().length);
+        }
+    }
+
+    @Test
+    void readLine_ShouldAcceptLinesUpToLimit() throws IOException {
+        String content = "X".repeat(1024) + "\n" + "Y".repeat(1024);
+
+        try (ByteLineReader reader = new ByteLineReader(new ByteArrayInputStream(bytes(content)), 1024)) {
+            assertTrue(reader.readLine());
+            assertEquals(1024, reader.end() - reader.start());
+            assertTrue(reader.readLine());
+            assertEquals(1024, reader.end() - reader.start());
+            assertFalse(reader.readLine());
+        }
+    }
+
+    private static List<String> readAll(InputStream in) throws IOException {
+        List<String> linhas = new ArrayList<>();
+        try (ByteLineReader reader = new ByteLineReader(in)) {
+            while (reader.readLine()) {
+                linhas.add(new String(reader.buffer(), reader.start(), reader.end() - reader.start(), StandardCharsets.US_ASCII));
+            }
+        }
+        return linhas;
+    }
+
+    private static List<String> readWithBufferedReader(String content) throws IOException {
+        return new BufferedReader(new StringReader(content)).lines().toList();
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.US_ASCII);
+    }
+}
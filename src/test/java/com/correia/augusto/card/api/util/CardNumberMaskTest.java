@@ -0,0 +1,27 @@
+package com.correia.augusto.card.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberMaskTest {
+
+    @Test
+    void mask_ShouldKeepFirstAndLastFourDigits() {
+        assertEquals("4111********1111", CardNumberMask.mask("4111111111111111"));
+        assertEquals("4111********1111", CardNumberMask.mask("4111111111111111".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void mask_ShouldMatchPreviousRegexForEveryLength() {
+        for (int length = 0; length <= 19; length++) {
+            String number = "1234567890123456789".substring(0, length);
+            String expected = number.replaceAll("(?<=.{4}).(?=.{4})", "*");
+
+            assertEquals(expected, CardNumberMask.mask(number));
+            assertEquals(expected, CardNumberMask.mask(number.getBytes(StandardCharsets.US_ASCII)));
+        }
+    }
+}
@@ -1,17 +1,22 @@
 package com.correia.augusto.card.api.util;
 
-import org.junit.Test;
+import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
 
-import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.*;
 
-public class EncryptionUtilTest {
+class EncryptionUtilTest {
 
 
     @Test
-    public void test_encrypt_returns_different_value_than_plaintext() {
+    void test_encrypt_returns_different_value_than_plaintext() {
         EncryptionUtil encryptionUtil = new EncryptionUtil();
         ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
         ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
@@ -26,7 +31,7 @@ public class EncryptionUtilTest {
     }
 
     @Test
-    public void test_encrypt_empty_string() {
+    void test_encrypt_empty_string() {
         EncryptionUtil encryptionUtil = new EncryptionUtil();
         ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
         ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
@@ -40,4 +45,116 @@ public class EncryptionUtilTest {
         String decrypted = encryptionUtil.decrypt(encrypted);
         assertEquals(plaintext, decrypted);
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_byte_array_round_trip_matches_string_api() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+        String plaintext = "4111111111111111";
+
+        byte[] encrypted = encryptionUtil.encryptBytes(plaintext.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(encryptionUtil.encrypt(plaintext), Base64.getEncoder().encodeToString(encrypted));
+        assertArrayEquals(plaintext.getBytes(StandardCharsets.UTF_8), encryptionUtil.decryptBytes(encrypted));
+    }
+
+    @Test
+    void test_byte_buffer_round_trip() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+        byte[] plaintext = "4111111111111111".getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer encrypted = ByteBuffer.allocate(64);
+        encryptionUtil.encrypt(ByteBuffer.wrap(plaintext), encrypted);
+        encrypted.flip();
+
+        ByteBuffer decrypted = ByteBuffer.allocate(64);
+        int length = encryptionUtil.decrypt(encrypted, decrypted);
+
+        assertEquals(plaintext.length, length);
+        decrypted.flip();
+        byte[] result = new byte[length];
+        decrypted.get(result);
+        assertArrayEquals(plaintext, result);
+    }
+
+    @Test
+    void test_hash_is_deterministic_and_fixed_width() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+
+        byte[] hash = encryptionUtil.hash("4111111111111111");
+
+        assertEquals(32, hash.length);
+        assertArrayEquals(hash, encryptionUtil.hash("4111111111111111"));
+    }
+
+    @Test
+    void test_hash_differs_per_number() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+
+        assertFalse(Arrays.equals(encryptionUtil.hash("4111111111111111"), encryptionUtil.hash("4111111111111112")));
+        assertFalse(Arrays.equals(encryptionUtil.hashBytes("4111111111111111".getBytes(StandardCharsets.UTF_8)),
+                encryptionUtil.hashBytes("4111111111111112".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void test_hash_bytes_matches_string_api() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+        byte[] number = "4111111111111111".getBytes(StandardCharsets.US_ASCII);
+
+        byte[] hash = encryptionUtil.hashBytes(number);
+
+        assertArrayEquals(encryptionUtil.hash("4111111111111111"), hash);
+        assertArrayEquals(hash, encryptionUtil.hashBytes(number.clone()));
+    }
+
+    @Test
+    void test_hash_depends_on_key() {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+        EncryptionUtil otherKey = new EncryptionUtil();
+        ReflectionTestUtils.setField(otherKey, "secretKey", "otherSecretKey45");
+        ReflectionTestUtils.setField(otherKey, "salt", "testSalt");
+
+        assertFalse(Arrays.equals(encryptionUtil.hash("4111111111111111"), otherKey.hash("4111111111111111")));
+    }
+
+    @Test
+    void test_hash_key_is_not_the_encryption_key_material() throws Exception {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+        byte[] number = "4111111111111111".getBytes(StandardCharsets.US_ASCII);
+
+        byte[] hash = encryptionUtil.hashBytes(number);
+
+        assertFalse(Arrays.equals(hmac("testSecretKey123testSalt", number), hash));
+        assertFalse(Arrays.equals(hmac("testSecretKey123", number), hash));
+    }
+
+    @Test
+    void test_hash_uses_dedicated_lookup_key_when_configured() throws Exception {
+        EncryptionUtil encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "secretKey", "testSecretKey123");
+        ReflectionTestUtils.setField(encryptionUtil, "salt", "testSalt");
+        ReflectionTestUtils.setField(encryptionUtil, "lookupKey", "chaveDeBuscaDedicada");
+        byte[] number = "4111111111111111".getBytes(StandardCharsets.US_ASCII);
+
+        assertArrayEquals(hmac("chaveDeBuscaDedicada", number), encryptionUtil.hashBytes(number));
+    }
+
+    private static byte[] hmac(String key, byte[] data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac.doFinal(data);
+    }
+}
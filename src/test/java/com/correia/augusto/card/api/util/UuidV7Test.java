@@ -0,0 +1,44 @@
+package com.correia.augusto.card.api.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    void next_ShouldSetVersionVariantAndTimestamp() {
+        long antes = System.currentTimeMillis();
+        UUID uuid = UuidV7.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue((uuid.getMostSignificantBits() >>> 16) >= antes);
+    }
+
+    @Test
+    void next_ShouldBeStrictlyIncreasingAsBinary() {
+        // dezenas de milhares de ids caem no mesmo ms: a sequência é que mantém a ordem dos bytes
+        byte[] anterior = UuidV7.toBytes(UuidV7.next());
+        for (int i = 0; i < 50_000; i++) {
+            byte[] atual = UuidV7.toBytes(UuidV7.next());
+            assertTrue(Arrays.compareUnsigned(anterior, atual) < 0);
+            anterior = atual;
+        }
+    }
+
+    @Test
+    void toBytes_ShouldRoundTrip() {
+        UUID uuid = UuidV7.next();
+
+        byte[] bytes = UuidV7.toBytes(uuid);
+
+        assertEquals(16, bytes.length);
+        assertEquals(uuid, UuidV7.fromBytes(bytes));
+        assertEquals(uuid.toString().replace("-", ""), HexFormat.of().formatHex(bytes));
+    }
+}
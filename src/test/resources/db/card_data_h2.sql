@@ -0,0 +1,16 @@
+-- card_data reduzida para os testes de gravação em H2 (modo MySQL); as migrations do Flyway são específicas do MySQL.
+CREATE TABLE card_data (
+    id BINARY(16) PRIMARY KEY,
+    number VARCHAR(255) NOT NULL UNIQUE,
+    number_hash BINARY(32),
+    masked_number VARCHAR(19),
+    holder_name VARCHAR(255),
+    expiration_date DATE,
+    cvv VARCHAR(4),
+    type VARCHAR(20),
+    lote VARCHAR(255),
+    data_processamento DATE,
+    created_by BIGINT NOT NULL,
+    created_at TIMESTAMP
+);
+CREATE UNIQUE INDEX uk_card_data_number_hash ON card_data (number_hash);